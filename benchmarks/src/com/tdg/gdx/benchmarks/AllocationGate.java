@@ -0,0 +1,77 @@
+package com.tdg.gdx.benchmarks;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the steady state tick benchmarks with the gc profiler and fails if any of them allocates.
+ * A tick that allocates even one object shows up as at least 16 B/op, JMH's own bookkeeping only accounts
+ * for a few thousandths of a byte per operation, which the allowance covers
+ */
+public class AllocationGate {
+
+	private static final String BENCHMARKS = "(MatchTickBenchmark|MoveSystemBenchmark|KnockoutSystemBenchmark)\\.";
+	private static final String ALLOCATION = "gc.alloc.rate.norm";
+	private static final double ALLOWANCE = 0.1; //B/op
+
+	public static void main(String[] args) throws RunnerException {
+
+		Options options = new OptionsBuilder()
+				.include(BENCHMARKS)
+				.addProfiler(GCProfiler.class)
+				.forks(1)
+				.warmupIterations(3)
+				.measurementIterations(3)
+				.build();
+
+		Collection<RunResult> results = new Runner(options).run();
+
+		int failed = 0;
+
+		for(RunResult run : results){
+
+			String name = run.getParams().getBenchmark();
+			for(String param : run.getParams().getParamsKeys()){
+				name += " " + param + "=" + run.getParams().getParam(param);
+			}
+
+			Result<?> allocated = null;
+			Map<String, ?> secondary = run.getSecondaryResults();
+			for(String key : secondary.keySet()){
+				if(key.endsWith(ALLOCATION)){
+					allocated = (Result<?>)secondary.get(key);
+				}
+			}
+
+			if(allocated == null){
+				System.out.println("FAIL " + name + " reported no allocation rate, is the gc profiler supported on this VM?");
+				++failed;
+			}else if(allocated.getScore() > ALLOWANCE){
+				System.out.println("FAIL " + name + " allocates " + String.format("%.3f", allocated.getScore()) + " B/op");
+				++failed;
+			}else{
+				System.out.println("OK   " + name);
+			}
+
+		}
+
+		if(results.isEmpty()){
+			System.out.println("FAIL no benchmarks matched " + BENCHMARKS);
+			++failed;
+		}
+
+		if(failed > 0){
+			System.exit(1);
+		}
+
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.tdg.gdx.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.badlogic.ashley.core.Engine;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Server;
+
+import Server.Components.EnergyComponent;
+import Server.Components.HealthComponent;
+import Server.Components.StateComponent;
+import Server.Enities.ServerPlayer;
+import Server.Listeners.LatencyService;
+import Server.Systems.ReplicationSystem;
+import Server.Utils.OutboundBatcher;
+import Server.Utils.PlayerState;
+import Server.Utils.ServerFiles;
+import Server.Utils.ServerLog;
+import Server.Utils.StateTimerWheel;
+import Server.Utils.WordUtil;
+
+/**
+ * A two player match wired together the way ServerGameWorld does it, without a bound server or scheduler.
+ * Messages are flushed to a server that was never started, so they are batched but not written anywhere
+ */
+public class BenchmarkMatch {
+
+	public static final long TIME_STEP = 100;
+
+	public final Server server;
+	public final ServerPlayer[] players;
+	public final Engine engine;
+	public final StateTimerWheel stateTimers;
+	public final OutboundBatcher outbound;
+	public final ReplicationSystem replication;
+	public final LatencyService latency;
+
+	public BenchmarkMatch() {
+
+		loadWords();
+
+		server = new Server();
+
+		players = new ServerPlayer[]{ new ServerPlayer("First", connection(1)), new ServerPlayer("Second", connection(2)) };
+
+		engine = new Engine();
+
+		for(int i = 0; i < players.length; ++i){
+			players[i].setSlot(i);
+			engine.addEntity(players[i]);
+		}
+
+		stateTimers = new StateTimerWheel(TIME_STEP);
+		outbound = new OutboundBatcher(server, players);
+		replication = new ReplicationSystem(outbound, players);
+		latency = new LatencyService(server);
+	}
+
+	/**
+	 * Loads the word list from the working directory, the benchmarks are run from the assets folder
+	 */
+	public static void loadWords(){
+
+		ServerLog.setLogger(ServerLog.CONSOLE);
+		ServerFiles.setSource(new ServerFiles.Directory(new File(System.getProperty("assets", "."))));
+
+		if(!WordUtil.initializeWords()){
+			throw new IllegalStateException("Could not read " + WordUtil.WORDS_PATH + ", run the benchmarks from the assets folder");
+		}
+
+	}
+
+	/**
+	 * Puts every player back to a fresh OPEN state
+	 */
+	public void reset(){
+
+		for(ServerPlayer player : players){
+			player.getComponent(HealthComponent.class).health = 100;
+			player.getComponent(EnergyComponent.class).energy = EnergyComponent.MAX_ENERGY;
+			player.getComponent(StateComponent.class).state = PlayerState.OPEN;
+		}
+
+	}
+
+	public void dispose(){
+		latency.dispose();
+
+		try {
+			server.dispose();
+		} catch (IOException e) {
+			ServerLog.log("BenchmarkMatch", "Failed to close the server's selector");
+		}
+	}
+
+	/**
+	 * @param id
+	 * @return a connection that is never opened, only its id is used
+	 */
+	private static Connection connection(final int id){
+
+		return new Connection(){
+
+			@Override
+			public int getID() {
+				return id;
+			}
+
+		};
+
+	}
+
+}
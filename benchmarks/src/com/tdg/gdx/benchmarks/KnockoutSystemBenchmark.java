@@ -0,0 +1,66 @@
+package com.tdg.gdx.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import Server.Systems.KnockoutSystem;
+
+/**
+ * Ticks of a knockout including its replication. A knockout lasts 100 ticks, after which the system is restarted
+ * for the next one so the cost of starting a knockout is spread over its ticks as it is in a match
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KnockoutSystemBenchmark {
+
+	private static final float DELTA = BenchmarkMatch.TIME_STEP / 1000f;
+
+	private BenchmarkMatch match;
+	private KnockoutSystem koSystem;
+
+	@Setup
+	public void setup(){
+
+		match = new BenchmarkMatch();
+		koSystem = new KnockoutSystem(match.outbound, match.replication, new Random(42));
+		start();
+	}
+
+	@Benchmark
+	public boolean tick(){
+
+		if(koSystem.knockedOut()){
+			match.engine.removeSystem(koSystem);
+			start();
+		}
+
+		koSystem.update(DELTA);
+		match.replication.flush();
+		match.outbound.flush();
+
+		return koSystem.knockedOut();
+	}
+
+	private void start(){
+		koSystem.start(match.players[1]);
+		match.engine.addSystem(koSystem);
+		match.outbound.flush();
+	}
+
+	@TearDown
+	public void tearDown(){
+		match.engine.removeSystem(koSystem);
+		match.dispose();
+	}
+
+}
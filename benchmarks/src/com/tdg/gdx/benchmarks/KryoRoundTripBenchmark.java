@@ -0,0 +1,204 @@
+package com.tdg.gdx.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import Client.Requests.DiscoveryRequest;
+import Client.Requests.JoinRequest;
+import Client.Requests.KOWordRequest;
+import Client.Requests.KeystrokeRequest;
+import Client.Requests.MessageRequest;
+import Client.Requests.MoveRequest;
+import Client.Requests.ReadyRequest;
+import Client.Requests.ResumeRequest;
+import Client.Requests.StartMatchRequest;
+import Client.Requests.TimeSyncRequest;
+import Client.Requests.WordSubmissionRequest;
+import Client.Utils.GameUtils;
+import Client.Utils.MoveType;
+import Server.Responses.BatchResponse;
+import Server.Responses.DiscoveryResponse;
+import Server.Responses.GameOverResponse;
+import Server.Responses.JoinResponse;
+import Server.Responses.MessageResponse;
+import Server.Responses.MoveResponse;
+import Server.Responses.PauseResponse;
+import Server.Responses.ResumeResponse;
+import Server.Responses.SnapshotResponse;
+import Server.Responses.StartResponse;
+import Server.Responses.TimeSyncResponse;
+import Server.Responses.WordQueueResponse;
+import Server.Responses.WordSubmissionResponse;
+import Server.Utils.PlayerState;
+
+/**
+ * Writes and reads back a typical instance of every class registered in GameUtils.serializeKryoObjects,
+ * the way KryoNet frames them. Setup fails if a registered class has no sample here so new messages are not missed
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KryoRoundTripBenchmark {
+
+	@Param({"MoveRequest", "MoveResponse", "MessageRequest", "MessageResponse", "JoinRequest", "JoinResponse",
+		"WordSubmissionRequest", "WordSubmissionResponse", "ReadyRequest", "StartResponse", "StartMatchRequest",
+		"KOWordRequest", "GameOverResponse", "SnapshotResponse", "BatchResponse", "Object[]", "WordQueueResponse", "String[]",
+		"KeystrokeRequest", "byte[]", "TimeSyncRequest", "TimeSyncResponse", "ResumeRequest", "ResumeResponse", "PauseResponse",
+		"DiscoveryRequest", "DiscoveryResponse", "MoveType", "PlayerState"})
+	public String message;
+
+	private Kryo kryo;
+	private Object sample;
+
+	private Output output;
+	private Input input;
+
+	@Setup
+	public void setup(){
+
+		kryo = new Kryo();
+		GameUtils.serializeKryoObjects(kryo);
+
+		LinkedHashMap<Class<?>, Object> samples = createSamples();
+
+		//Everything registered after the first game message has to have a sample
+		ArrayList<String> missing = new ArrayList<String>();
+		int first = kryo.getRegistration(MoveRequest.class).getId();
+
+		for(int id = first; id < kryo.getNextRegistrationId(); ++id){
+
+			Registration registration = kryo.getRegistration(id);
+
+			if(registration != null && !samples.containsKey(registration.getType())){
+				missing.add(registration.getType().getSimpleName());
+			}
+
+		}
+
+		if(!missing.isEmpty()){
+			throw new IllegalStateException("No sample for the registered classes " + missing + ", add them to KryoRoundTripBenchmark");
+		}
+
+		for(Class<?> type : samples.keySet()){
+			if(type.getSimpleName().equals(message)){
+				sample = samples.get(type);
+			}
+		}
+
+		if(sample == null){
+			throw new IllegalArgumentException("No sample named " + message);
+		}
+
+		output = new Output(4096);
+		input = new Input();
+	}
+
+	@Benchmark
+	public Object roundTrip(){
+
+		output.clear();
+		kryo.writeClassAndObject(output, sample);
+
+		input.setBuffer(output.getBuffer(), 0, output.position());
+		return kryo.readClassAndObject(input);
+	}
+
+	private static LinkedHashMap<Class<?>, Object> createSamples(){
+
+		LinkedHashMap<Class<?>, Object> samples = new LinkedHashMap<Class<?>, Object>();
+
+		samples.put(MoveRequest.class, new MoveRequest(MoveType.HOOK, 1042, 1489000000000L));
+		samples.put(MoveResponse.class, new MoveResponse(MoveType.HOOK));
+
+		samples.put(MessageRequest.class, new MessageRequest("Champion", "Good luck"));
+		samples.put(MessageResponse.class, new MessageResponse("Champion", "Good luck"));
+
+		JoinResponse join = new JoinResponse("Champion", true);
+		join.resumeToken = 0x5DEECE66DL;
+		join.resumeGrace = 10000;
+		samples.put(JoinRequest.class, new JoinRequest("Champion"));
+		samples.put(JoinResponse.class, join);
+
+		samples.put(WordSubmissionRequest.class, new WordSubmissionRequest("keyboard", 311));
+		samples.put(WordSubmissionResponse.class, new WordSubmissionResponse(true, "uppercut"));
+
+		samples.put(ReadyRequest.class, new ReadyRequest());
+		samples.put(StartResponse.class, new StartResponse("Challenger", 0, 1));
+		samples.put(StartMatchRequest.class, new StartMatchRequest());
+
+		samples.put(KOWordRequest.class, new KOWordRequest("recover"));
+		samples.put(GameOverResponse.class, new GameOverResponse("Champion"));
+
+		//A full snapshot, as sent on a resync
+		SnapshotResponse snapshot = new SnapshotResponse();
+		snapshot.mask = SnapshotResponse.HEALTH | SnapshotResponse.ENERGY | SnapshotResponse.ANIMATION
+				| SnapshotResponse.KNOCKOUT | SnapshotResponse.KO_TIME | SnapshotResponse.ACK;
+		snapshot.health = 72;
+		snapshot.energy = 38;
+		snapshot.animations = new MoveType[]{ MoveType.JAB, MoveType.BLOCK };
+		snapshot.koSlot = 1;
+		snapshot.koEnable = true;
+		snapshot.koTime = 4;
+		snapshot.ack = 1042;
+		snapshot.rejected = 1 << 2; //1040
+		samples.put(SnapshotResponse.class, snapshot);
+
+		WordQueueResponse queue = new WordQueueResponse();
+		String[] words = { "punch", "guard", "typing", "ring", "corner", "round", "bell", "champ" };
+		for(String word : words){
+			queue.words[queue.count++] = word;
+		}
+
+		//A typical tick's batch for one player
+		Object[] messages = { snapshot, queue, new WordSubmissionResponse(true, "uppercut") };
+		samples.put(BatchResponse.class, new BatchResponse(messages, messages.length));
+		samples.put(Object[].class, messages);
+
+		samples.put(WordQueueResponse.class, queue);
+		samples.put(String[].class, words);
+
+		byte[] keystrokes = new byte[32];
+		for(int i = 0; i < keystrokes.length; ++i){
+			keystrokes[i] = (byte)(i * 7);
+		}
+		samples.put(KeystrokeRequest.class, new KeystrokeRequest(keystrokes));
+		samples.put(byte[].class, keystrokes);
+
+		samples.put(TimeSyncRequest.class, new TimeSyncRequest(1489000000000L));
+		samples.put(TimeSyncResponse.class, new TimeSyncResponse(1489000000000L, 1489000000031L));
+		samples.put(ResumeRequest.class, new ResumeRequest(0x5DEECE66DL));
+		samples.put(ResumeResponse.class, new ResumeResponse(true, true));
+		samples.put(PauseResponse.class, new PauseResponse(true, "Challenger"));
+
+		DiscoveryResponse discovery = new DiscoveryResponse();
+		discovery.tcpPort = 54555;
+		discovery.udpPort = 54777;
+		discovery.players = 24;
+		discovery.matches = 12;
+		discovery.tickLag = 2;
+		discovery.timeStep = 100;
+		samples.put(DiscoveryRequest.class, new DiscoveryRequest());
+		samples.put(DiscoveryResponse.class, discovery);
+
+		samples.put(MoveType.class, MoveType.UPPERCUT);
+		samples.put(PlayerState.class, PlayerState.BLOCKING);
+
+		return samples;
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.tdg.gdx.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import Client.Requests.MoveRequest;
+import Client.Requests.WordSubmissionRequest;
+import Client.Utils.MoveType;
+import Server.Components.WordComponent;
+import Server.Systems.MoveSystem;
+import Server.Systems.WordSystem;
+
+/**
+ * One steady state tick of a match in the order ServerGameWorld runs it: both players make a move, one of them
+ * types a word every other tick, and the tick's state is replicated and flushed. The players are reset every tick
+ * so nobody is knocked out
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MatchTickBenchmark {
+
+	private static final float DELTA = BenchmarkMatch.TIME_STEP / 1000f;
+
+	private BenchmarkMatch match;
+	private WordSystem wordSystem;
+	private MoveSystem moveSystem;
+
+	private MoveRequest[] moves;
+	private WordSubmissionRequest word;
+	private WordComponent[] words;
+	private int ticks;
+
+	@Setup
+	public void setup(){
+
+		match = new BenchmarkMatch();
+		wordSystem = new WordSystem(match.outbound, match.latency);
+		moveSystem = new MoveSystem(match.players, match.stateTimers, match.replication, match.latency);
+		match.engine.addSystem(wordSystem);
+		match.engine.addSystem(moveSystem);
+
+		moves = new MoveRequest[]{ new MoveRequest(MoveType.JAB, 0, 0), new MoveRequest(MoveType.BLOCK, 0, 0) };
+		word = new WordSubmissionRequest();
+		words = new WordComponent[match.players.length];
+		for(int i = 0; i < words.length; ++i){
+			words[i] = match.players[i].getComponent(WordComponent.class);
+		}
+
+		tick();
+	}
+
+	@Benchmark
+	public int tick(){
+
+		match.reset();
+
+		long now = System.currentTimeMillis();
+		for(int i = 0; i < moves.length; ++i){
+			++moves[i].sequence;
+			moves[i].time = now;
+			moves[i].received = now;
+			moveSystem.addMove(i, moves[i]);
+		}
+
+		if((ticks & 1) == 0){
+			int slot = (ticks >> 1) & 1;
+			word.word = words[slot].getWord();
+			++word.sequence;
+			wordSystem.processWord(match.players[slot].getID(), word);
+		}
+
+		match.stateTimers.advance();
+		match.engine.update(DELTA);
+		match.replication.flush();
+		match.outbound.flush();
+
+		return ++ticks;
+	}
+
+	@TearDown
+	public void tearDown(){
+		match.dispose();
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.tdg.gdx.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import Client.Requests.MoveRequest;
+import Client.Utils.MoveType;
+import Server.Components.HealthComponent;
+import Server.Systems.MoveSystem;
+
+/**
+ * One tick of move resolution. The moves arrive out of order within the compensation window so the
+ * insertion into the tick's queue is exercised as well as the resolution
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveSystemBenchmark {
+
+	@Param({"1", "4", "16", "64"})
+	public int moves;
+
+	private BenchmarkMatch match;
+	private MoveSystem moveSystem;
+	private MoveRequest[] requests;
+	private HealthComponent health;
+
+	@Setup
+	public void setup(){
+
+		match = new BenchmarkMatch();
+		moveSystem = new MoveSystem(match.players, match.stateTimers, match.replication, match.latency);
+		match.engine.addSystem(moveSystem);
+		health = match.players[1].getComponent(HealthComponent.class);
+
+		MoveType[] types = { MoveType.JAB, MoveType.UPPERCUT, MoveType.HOOK, MoveType.CROSS, MoveType.BLOCK, MoveType.COUNTER };
+		Random random = new Random(42);
+		long now = 1000000;
+
+		requests = new MoveRequest[moves];
+		for(int i = 0; i < moves; ++i){
+			requests[i] = new MoveRequest(types[random.nextInt(types.length)], i, now - random.nextInt(100));
+			requests[i].received = now;
+		}
+
+	}
+
+	@Benchmark
+	public int update(){
+
+		match.reset();
+
+		for(int i = 0; i < requests.length; ++i){
+			moveSystem.addMove(i & 1, requests[i]);
+		}
+
+		moveSystem.update(BenchmarkMatch.TIME_STEP / 1000f);
+
+		return health.health;
+	}
+
+	@TearDown
+	public void tearDown(){
+		match.dispose();
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.tdg.gdx.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import Client.Requests.WordSubmissionRequest;
+import Server.Components.WordComponent;
+import Server.Systems.WordSystem;
+
+/**
+ * Word submissions as they are handled during a tick: a correct word followed by the queue being topped up,
+ * and a word that no longer matches which sends the player the server's queue
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WordSystemBenchmark {
+
+	private BenchmarkMatch match;
+	private WordSystem wordSystem;
+	private WordComponent words;
+	private int id;
+
+	private WordSubmissionRequest request;
+
+	@Setup
+	public void setup(){
+
+		match = new BenchmarkMatch();
+		wordSystem = new WordSystem(match.outbound, match.latency);
+		match.engine.addSystem(wordSystem);
+
+		words = match.players[0].getComponent(WordComponent.class);
+		id = match.players[0].getID();
+
+		request = new WordSubmissionRequest();
+
+		wordSystem.update(0);
+		match.outbound.flush();
+	}
+
+	@Benchmark
+	public int correctWord(){
+
+		request.word = words.getWord();
+		++request.sequence;
+
+		wordSystem.processWord(id, request);
+		wordSystem.update(0);
+		match.outbound.flush();
+
+		return words.size;
+	}
+
+	@Benchmark
+	public int mismatchedWord(){
+
+		request.word = "";
+		++request.sequence;
+
+		wordSystem.processWord(id, request);
+		match.outbound.flush();
+
+		return words.size;
+	}
+
+	@TearDown
+	public void tearDown(){
+		match.dispose();
+	}
+
+}
@@ -0,0 +1,37 @@
+package com.tdg.gdx.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import Server.Utils.WordUtil;
+
+/**
+ * Picking a word of a given length, as knockouts do for every word typed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WordUtilBenchmark {
+
+	@Param({"3", "5", "7"})
+	public int length;
+
+	@Setup
+	public void setup(){
+		BenchmarkMatch.loadWords();
+	}
+
+	@Benchmark
+	public String getWord(){
+		return WordUtil.getWord(length);
+	}
+
+}
@@ -10,7 +10,7 @@ import Client.Components.PositionComponent;
 import Client.Components.StatsComponent;
 import Client.Components.UIComponent;
 import Client.Utils.MoveType;
-import Server.Responses.StatResponse;
+import Server.Responses.SnapshotResponse;
 
 public class ClientPlayer extends Entity{
 	
@@ -34,10 +34,15 @@ public class ClientPlayer extends Entity{
 		animationComponent.addAnimation(key, animation);
 	}
 	
-	public void updateStats(StatResponse r){
+	public void updateStats(SnapshotResponse r){
 		
-		statsComponent.health = r.health;
-		statsComponent.energy = r.energy;
+		if(r.has(SnapshotResponse.HEALTH)){
+			statsComponent.health = r.health;
+		}
+		
+		if(r.has(SnapshotResponse.ENERGY)){
+			statsComponent.energy = r.energy;
+		}
 		
 		Gdx.app.log("Client Player", "( " +statsComponent.health + ", " + statsComponent.energy + ")"); 
 		
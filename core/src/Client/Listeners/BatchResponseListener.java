@@ -0,0 +1,53 @@
+package Client.Listeners;
+
+import java.util.ArrayList;
+
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+
+import Server.Responses.BatchResponse;
+
+/**
+ * Forwards everything the client receives to its own listeners, unpacking BatchResponses
+ * so each batched message is handled in the order the server queued it
+ */
+public class BatchResponseListener extends Listener{
+
+	private ArrayList<Listener> listeners;
+	
+	public BatchResponseListener() {
+		listeners = new ArrayList<Listener>();
+	}
+	
+	public void addListener(Listener listener){
+		listeners.add(listener);
+	}
+	
+	public void removeListener(Listener listener){
+		listeners.remove(listener);
+	}
+	
+	@Override
+	public void received(Connection connection, Object object) {
+		
+		if(object instanceof BatchResponse){
+			
+			BatchResponse r = (BatchResponse)object;
+			
+			for(int i = 0; i < r.count; ++i){
+				dispatch(connection, r.messages[i]);
+			}
+			
+		}else{
+			dispatch(connection, object);
+		}
+		
+	}
+	
+	private void dispatch(Connection connection, Object object){
+		for(int i = 0; i < listeners.size(); ++i){
+			listeners.get(i).received(connection, object);
+		}
+	}
+	
+}
@@ -0,0 +1,10 @@
+package Client.Requests;
+
+/**
+ * Broadcast by a client looking for servers on its LAN
+ */
+public class DiscoveryRequest {
+
+	public DiscoveryRequest() {}
+	
+}
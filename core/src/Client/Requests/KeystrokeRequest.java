@@ -0,0 +1,16 @@
+package Client.Requests;
+
+/**
+ * A batch of keystrokes typed into the match's text field, encoded by KeystrokeCodec
+ */
+public class KeystrokeRequest {
+
+	public byte[] data;
+	
+	public KeystrokeRequest(byte[] data) {
+		this.data = data;
+	}
+	
+	public KeystrokeRequest() {}
+	
+}
@@ -4,12 +4,16 @@ import Client.Utils.MoveType;
 
 public class MoveRequest {
 
-	public String name;
 	public MoveType move;
+	public int sequence; //Lets the client match the server's acknowledgement to its predicted move
+	public long time; //Server time the move was made by the client's synced clock, 0 if the clock is not synced yet
+	
+	public transient long received; //Server time the move arrived, set by the server and never sent
 
-	public MoveRequest(String name, MoveType move) {
-		this.name = name;
+	public MoveRequest(MoveType move, int sequence, long time) {
 		this.move = move;
+		this.sequence = sequence;
+		this.time = time;
 	}
 	
 	public MoveRequest() {
@@ -0,0 +1,16 @@
+package Client.Requests;
+
+/**
+ * Sent by a client that reconnected after losing its connection, re-attaches it to the player it was
+ */
+public class ResumeRequest {
+
+	public long token;
+	
+	public ResumeRequest(long token) {
+		this.token = token;
+	}
+	
+	public ResumeRequest() {}
+	
+}
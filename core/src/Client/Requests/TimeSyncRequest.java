@@ -0,0 +1,13 @@
+package Client.Requests;
+
+public class TimeSyncRequest {
+
+	public long clientTime;
+	
+	public TimeSyncRequest(long clientTime) {
+		this.clientTime = clientTime;
+	}
+	
+	public TimeSyncRequest() {}
+	
+}
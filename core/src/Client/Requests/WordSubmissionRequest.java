@@ -3,9 +3,11 @@ package Client.Requests;
 public class WordSubmissionRequest {
 
 	public String word;
+	public int sequence;
 	
-	public WordSubmissionRequest(String word) {
+	public WordSubmissionRequest(String word, int sequence) {
 		this.word = word;
+		this.sequence = sequence;
 	}
 	
 	public WordSubmissionRequest() {
@@ -1,5 +1,7 @@
 package Client.Screens;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Stack;
 
 import com.badlogic.gdx.Gdx;
@@ -11,6 +13,7 @@ import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextField;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.StretchViewport;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.Listener;
@@ -18,8 +21,11 @@ import com.tdg.gdx.TypingGame;
 
 import Client.Requests.JoinRequest;
 import Client.Utils.ClientManager;
+import Client.Utils.ConnectTask;
 import Client.Utils.Constants;
 import Client.Utils.Errors;
+import Client.Utils.HostDiscovery;
+import Client.Utils.LanHost;
 import Client.Utils.MenuManager;
 import Server.Responses.JoinResponse;
 
@@ -33,7 +39,19 @@ public class ConnectionScreen implements Screen{
 	private TextField field;
 	private Label errorMessageLabel;
 	
+	//Lan server list, refreshed while it is shown
+	private Table lanTable;
+	private Label hostsLabel;
+	private ArrayList<LanHost> hosts;
+	private LanHost selected;
+	private boolean userSelected; //Stops the least loaded host from being picked over the player's choice
+	private boolean discovering;
+	private float discoveryTimer;
+	private final float DISCOVERY_INTERVAL = 2;
+	private final long HOST_TIMEOUT = 5000; //Hosts that have not answered for this long in ms are dropped
+	
 	private ClientManager clientManager;
+	private ConnectTask.Listener connectListener;
 	
 	private String name;
 	
@@ -69,7 +87,7 @@ public class ConnectionScreen implements Screen{
 			@Override
 			public void changed(ChangeEvent event, Actor actor) {
 				BEEP.play(BEEP_VOLUME);
-				localGame();
+				lanGame();
 				
 			}
 			
@@ -121,6 +139,47 @@ public class ConnectionScreen implements Screen{
 			
 		});
 		
+		hosts = new ArrayList<LanHost>();
+		
+		lanTable = menu.addTable();
+		menu.addLabel(lanTable, "Servers:");
+		lanTable.row();
+		
+		hostsLabel = menu.addLabel(lanTable, "");
+		menu.setActorCellSize(lanTable, 400, 160, hostsLabel);
+		
+		lanTable.row();
+		
+		menu.addTextButton(lanTable, "Back").addListener(new ChangeListener(){
+			
+			@Override
+			public void changed(ChangeEvent event, Actor actor) {
+				BEEP.play(BEEP_VOLUME);
+				lanOff();
+			}
+			
+		});
+		
+		menu.addTextButton(lanTable, "Next").addListener(new ChangeListener(){
+			
+			@Override
+			public void changed(ChangeEvent event, Actor actor) {
+				BEEP.play(BEEP_VOLUME);
+				selectNextHost();
+			}
+			
+		});
+		
+		menu.addTextButton(lanTable, "Connect").addListener(new ChangeListener(){
+			
+			@Override
+			public void changed(ChangeEvent event, Actor actor) {
+				BEEP.play(BEEP_VOLUME);
+				localGame();
+			}
+			
+		});
+		
 		menu.addTextButton("Back").addListener(new ChangeListener(){
 			
 			@Override
@@ -159,6 +218,28 @@ public class ConnectionScreen implements Screen{
 		});
 		clientManager.getClient().addListener(listeners.peek());
 		
+		//Connection progress, called on the render thread
+		connectListener = new ConnectTask.Listener(){
+			
+			@Override
+			public void progress(String status) {
+				setStatusText(status);
+			}
+			
+			@Override
+			public void connected() {
+				setStatusText("Joining");
+				Gdx.app.log("Client - ConnectionScreen", "Sending Join Request");
+				clientManager.getClient().sendTCP(new JoinRequest(clientManager.name));
+			}
+			
+			@Override
+			public void failed() {
+				setErrorText(Errors.CONNECTION);
+			}
+			
+		};
+		
 		changeScreen = false;
 		
 	}
@@ -173,6 +254,11 @@ public class ConnectionScreen implements Screen{
 		menu.getMainTable().setVisible(true);
 	}
 	
+	private void lanOff() {
+		lanTable.setVisible(false);
+		menu.getMainTable().setVisible(true);
+	}
+	
 	private void back(){
 		dispose();
 		game.setScreen(new MenuScreen(game));
@@ -182,14 +268,22 @@ public class ConnectionScreen implements Screen{
 		
 		String text = "";
 		
-		menu.removeActor(errorMessageLabel);
-		
 		if(error == Errors.NAME){
 			text = "Please change your name";
 		}else if(error == Errors.CONNECTION){
 			text = "Failed to connect";
+		}else if(error == Errors.HOST){
+			text = "No server selected";
 		}
 		
+		setStatusText(text);
+		
+	}
+	
+	private void setStatusText(String text) {
+		
+		menu.removeActor(errorMessageLabel);
+		
 		errorMessageLabel = menu.addFloatingText(text, 0, 0);
 		errorMessageLabel.setPosition(Constants.V_WIDTH/2 - errorMessageLabel.getWidth()/2, 40);
 		
@@ -197,24 +291,141 @@ public class ConnectionScreen implements Screen{
 	
 	private void connect(String addr){
 		
-		if(clientManager.connectNet(name, addr, 54555, 54777)){
-			Gdx.app.log("Client - ConnectionScreen", "Sending Join Request");
-			clientManager.getClient().sendTCP(new JoinRequest(name));
-		}else{
-			setErrorText(Errors.CONNECTION);
-		}
+		//Ignored while an earlier attempt is still running
+		clientManager.connectNet(name, addr, 54555, 54777, connectListener);
 		
 	}
 	
 	private void localGame(){
 		
-		if(clientManager.connectLan(name, 54555, 54777)){
-			Gdx.app.log("Client - ConnectionScreen", "Sending Join Request");
-			clientManager.getClient().sendTCP(new JoinRequest(name));
-		}else{
-			setErrorText(Errors.CONNECTION);
+		if(selected == null){
+			setErrorText(Errors.HOST);
+			return;
+		}
+		
+		clientManager.connectLan(name, selected.address, selected.info.tcpPort, selected.info.udpPort, connectListener);
+			
+	}
+	
+	private void lanGame(){
+		
+		menu.getMainTable().setVisible(false);
+		lanTable.setVisible(true);
+		
+		hosts.clear();
+		selected = null;
+		userSelected = false;
+		updateHostsLabel();
+		
+		if(!discovering){
+			discoverHosts();
 		}
+		
+	}
+	
+	private void discoverHosts(){
+		
+		discovering = true;
+		discoveryTimer = 0;
+		
+		clientManager.discoverHosts(new HostDiscovery.Listener(){
+			
+			@Override
+			public void hostFound(LanHost host) {
+				addHost(host);
+			}
+			
+			@Override
+			public void finished() {
+				discovering = false;
+				removeStaleHosts();
+			}
+			
+		});
+		
+	}
+	
+	/**
+	 * Adds the host or refreshes its load if it is already listed
+	 * @param host
+	 */
+	private void addHost(LanHost host){
+		
+		for(int i = 0; i < hosts.size(); ++i){
+			
+			if(hosts.get(i).address.equals(host.address)){
+				
+				if(selected == hosts.get(i)){
+					selected = host;
+				}
+				
+				hosts.remove(i);
+				break;
+			}
+			
+		}
+		
+		hosts.add(host);
+		Collections.sort(hosts);
+		
+		if(!userSelected){
+			selected = hosts.get(0);
+		}
+		
+		updateHostsLabel();
+	}
+	
+	private void removeStaleHosts(){
+		
+		long now = TimeUtils.millis();
+		
+		for(int i = hosts.size() - 1; i >= 0; --i){
+			
+			if(now - hosts.get(i).seen > HOST_TIMEOUT){
+				
+				if(selected == hosts.get(i)){
+					selected = null;
+					userSelected = false;
+				}
+				
+				hosts.remove(i);
+			}
 			
+		}
+		
+		if(selected == null && !hosts.isEmpty()){
+			selected = hosts.get(0);
+		}
+		
+		updateHostsLabel();
+	}
+	
+	private void selectNextHost(){
+		
+		if(hosts.isEmpty()){
+			return;
+		}
+		
+		selected = hosts.get((hosts.indexOf(selected) + 1) % hosts.size());
+		userSelected = true;
+		
+		updateHostsLabel();
+	}
+	
+	private void updateHostsLabel(){
+		
+		if(hosts.isEmpty()){
+			hostsLabel.setText("Searching...");
+			return;
+		}
+		
+		StringBuilder text = new StringBuilder();
+		
+		for(LanHost host : hosts){
+			text.append(host == selected ? "> " : "  ").append(host).append('\n');
+		}
+		
+		hostsLabel.setText(text);
 	}
 	
 	private void netGame(){
@@ -237,6 +448,17 @@ public class ConnectionScreen implements Screen{
 		
 		menu.render(delta);
 		
+		//Keeps the server list up to date while it is shown
+		if(lanTable.isVisible() && !discovering){
+			
+			discoveryTimer += delta;
+			
+			if(discoveryTimer >= DISCOVERY_INTERVAL){
+				discoverHosts();
+			}
+			
+		}
+		
 		if(changeScreen){
 			dispose();
 			game.setScreen(new LobbyScreen(game, clientManager));
@@ -10,6 +10,7 @@ import Client.Requests.StartMatchRequest;
 import Client.Utils.ClientManager;
 import Client.Utils.Constants;
 import Client.Worlds.ClientGameWorld;
+import Server.Responses.StartResponse;
 import Server.Utils.ServerManager;
 
 public class GameScreen implements Screen{
@@ -26,14 +27,14 @@ public class GameScreen implements Screen{
 	
 	
 
-	public GameScreen(TypingGame game, ClientManager client, ServerManager server, String enemyName) {
+	public GameScreen(TypingGame game, ClientManager client, ServerManager server, StartResponse start) {
 		
 		this.game = game;
 		this.server = server;
 		this.client = client;
 		
 		view = new StretchViewport(Constants.V_WIDTH, Constants.V_HEIGHT);
-		world = new ClientGameWorld(view, client, enemyName);
+		world = new ClientGameWorld(view, client, start);
 		
 		client.getClient().sendTCP(new StartMatchRequest());
 		
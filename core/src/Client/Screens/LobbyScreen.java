@@ -201,7 +201,7 @@ public class LobbyScreen implements Screen{
 		
 		if(start != null){
 			this.dispose();
-			game.setScreen(new GameScreen(game, client, server, start.enemyName));
+			game.setScreen(new GameScreen(game, client, server, start));
 		}
 		
 	}
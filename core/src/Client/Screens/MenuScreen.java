@@ -1,5 +1,7 @@
 package Client.Screens;
 
+import java.net.InetAddress;
+
 import com.badlogic.gdx.Gdx;
 
 import com.badlogic.gdx.Screen;
@@ -14,6 +16,7 @@ import com.tdg.gdx.TypingGame;
 
 import Client.Requests.JoinRequest;
 import Client.Utils.ClientManager;
+import Client.Utils.ConnectTask;
 import Client.Utils.Constants;
 import Client.Utils.MenuManager;
 import Server.Utils.ServerManager;
@@ -113,17 +116,33 @@ public class MenuScreen implements Screen{
 		});
 	}
 	
-	private void setServer(String name){
+	private void setServer(final String name){
 		
-		ServerManager server = new ServerManager(54555, 54777);
-		ClientManager client = new ClientManager(name);
+		final ServerManager server = new ServerManager(54555, 54777);
+		final ClientManager client = new ClientManager(name);
 		
-		if(server.bind(54555, 54777) && client.connectLan(name, 54555, 54777)){
-			client.getClient().sendTCP(new JoinRequest(name));
-			game.setScreen(new LobbyScreen(game, server, client));
-		}else{
+		if(!server.bind(54555, 54777)){
 			setErrorText();
+			return;
 		}
+		
+		client.connectLan(name, InetAddress.getLoopbackAddress(), 54555, 54777, new ConnectTask.Listener(){
+			
+			@Override
+			public void progress(String status) {}
+			
+			@Override
+			public void connected() {
+				client.getClient().sendTCP(new JoinRequest(name));
+				game.setScreen(new LobbyScreen(game, server, client));
+			}
+			
+			@Override
+			public void failed() {
+				setErrorText();
+			}
+			
+		});
 	}
 	
 	private void setErrorText() {
@@ -2,13 +2,45 @@ package Client.Utils;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.Timer;
+import java.util.TimerTask;
+
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.esotericsoftware.kryonet.Client;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.FrameworkMessage.Ping;
+import com.esotericsoftware.kryonet.Listener;
+
+import Client.Requests.ResumeRequest;
+import Server.Responses.JoinResponse;
+import Server.Responses.ResumeResponse;
+import Server.Responses.TimeSyncResponse;
+import Server.Utils.DiscoveryService;
+import Server.Utils.LatencyStats;
 
 public class ClientManager {
 	
 	private Client client;
 	public String name;
+	
+	private boolean prediction; //Whether the game shows the player's moves before the server confirms them
+	
+	private LatencyStats latency;
+	private ClockSync clock;
+	private Timer latencyTimer;
+	private final long PING_INTERVAL = 1000;
+	
+	//Session handed out by the server on joining, lets a dropped connection pick up where it left off
+	private volatile long resumeToken;
+	private volatile long resumeGrace;
+	private final long RECONNECT_INTERVAL = 1000;
+	
+	private final int DISCOVERY_TIMEOUT = 1000;
+	
+	private boolean connecting; //Only touched on the render thread
+	private ConnectTask.Listener connectListener;
+	private final int CONNECT_TIMEOUT = 5000;
 
 	public ClientManager(String name) {
 		
@@ -18,44 +50,225 @@ public class ClientManager {
 		
 		this.name = name;
 		
+		//Round trip time and clock offset to the server
+		latency = new LatencyStats();
+		clock = new ClockSync();
+		client.addListener(new Listener(){
+			
+			@Override
+			public void received(Connection connection, Object object) {
+				if(object instanceof Ping && ((Ping)object).isReply){
+					latency.pingReplied(connection.getReturnTripTime());
+				}else if(object instanceof TimeSyncResponse){
+					clock.received((TimeSyncResponse)object, TimeUtils.millis());
+				}else if(object instanceof JoinResponse){
+					
+					JoinResponse r = (JoinResponse)object;
+					if(r.success && r.resumeToken != 0 && r.name.equals(ClientManager.this.name)){
+						resumeToken = r.resumeToken;
+						resumeGrace = r.resumeGrace;
+					}
+					
+				}else if(object instanceof ResumeResponse){
+					
+					ResumeResponse r = (ResumeResponse)object;
+					if(!r.success){
+						Gdx.app.log("ClientManager", "Session could not be resumed");
+						resumeToken = 0;
+					}
+					
+				}
+			}
+			
+			@Override
+			public void connected(Connection connection) {
+				client.sendTCP(clock.createRequest(TimeUtils.millis()));
+			}
+			
+			@Override
+			public void disconnected(Connection connection) {
+				if(resumeToken != 0){
+					reconnect(resumeToken, resumeGrace);
+				}
+			}
+			
+		});
+		
+		latencyTimer = new Timer("client-latency", true);
+		latencyTimer.scheduleAtFixedRate(new TimerTask(){
+			
+			@Override
+			public void run() {
+				if(client.isConnected()){
+					latency.pingSent();
+					client.updateReturnTripTime();
+					client.sendTCP(clock.createRequest(TimeUtils.millis()));
+				}
+			}
+			
+		}, PING_INTERVAL, PING_INTERVAL);
+		
 	}
 	
-	public boolean connectLan(String name, int tcp, int udp){
-		
-		InetAddress address = client.discoverHost(udp, 300);
+	/**
+	 * Searches the LAN for servers in the background, the listener is called on the render thread
+	 * @param listener
+	 */
+	public void discoverHosts(HostDiscovery.Listener listener){
+		new HostDiscovery(DiscoveryService.DEFAULT_PORT, DISCOVERY_TIMEOUT, listener).start();
+	}
+	
+	/**
+	 * Connects in the background, the listener is called on the render thread
+	 * @param name
+	 * @param address
+	 * @param tcp
+	 * @param udp
+	 * @param listener
+	 * @return false if a connection attempt is already running
+	 */
+	public boolean connectLan(String name, InetAddress address, int tcp, int udp, ConnectTask.Listener listener){
 		
-		try {
-			client.connect(5000, address, tcp, udp);
-		} catch (IOException e) {
-			Gdx.app.log("ClientManager", "Failed to connect to a client");
-			return false;
-		} catch(IllegalArgumentException e){
-			Gdx.app.log("ClientManager", "Failed to connect to a client");
+		if(!beginConnect(listener)){
 			return false;
 		}
 		
 		this.name = name;
+		prediction = false;
 		
+		new ConnectTask(client, null, address, tcp, udp, CONNECT_TIMEOUT, connectListener).start();
 		return true;
 		
 	}
 	
-	public boolean connectNet(String name, String address, int tcp, int udp){
+	/**
+	 * Connects in the background, every address the host resolves to is tried at once.
+	 * The listener is called on the render thread
+	 * @param name
+	 * @param address host name or ip
+	 * @param tcp
+	 * @param udp
+	 * @param listener
+	 * @return false if a connection attempt is already running
+	 */
+	public boolean connectNet(String name, String address, int tcp, int udp, ConnectTask.Listener listener){
 		
-		try {
-			client.connect(5000, address, tcp, udp);
-		} catch (IOException e) {
-			Gdx.app.log("ClientManager", "Failed to connect to a client");
+		if(!beginConnect(listener)){
 			return false;
-		}catch(IllegalArgumentException e){
-			Gdx.app.log("ClientManager", "Failed to connect to a client");
+		}
+		
+		this.name = name;
+		
+		//Internet round trips are long enough to notice
+		prediction = true;
+		
+		new ConnectTask(client, address, null, tcp, udp, CONNECT_TIMEOUT, connectListener).start();
+		return true;
+		
+	}
+	
+	private boolean beginConnect(final ConnectTask.Listener listener){
+		
+		if(connecting){
 			return false;
 		}
 		
+		connecting = true;
+		
+		//Clears the flag before handing the result on
+		connectListener = new ConnectTask.Listener(){
+			
+			@Override
+			public void progress(String status) {
+				listener.progress(status);
+			}
+			
+			@Override
+			public void connected() {
+				connecting = false;
+				listener.connected();
+			}
+			
+			@Override
+			public void failed() {
+				connecting = false;
+				listener.failed();
+			}
+			
+		};
 		
-		this.name = name;
 		return true;
+	}
+	
+	public boolean isConnecting(){
+		return connecting;
+	}
+
+	/**
+	 * Keeps trying to reconnect in the background until the server's grace period runs out,
+	 * then asks the server to resume the session on the new connection
+	 * @param token
+	 * @param grace
+	 */
+	private void reconnect(final long token, final long grace){
+		
+		Gdx.app.log("ClientManager", "Connection lost, reconnecting");
+		
+		Thread thread = new Thread(new Runnable(){
+			
+			@Override
+			public void run() {
+				
+				long deadline = TimeUtils.millis() + grace;
+				
+				while(TimeUtils.millis() < deadline){
+					
+					try {
+						client.reconnect();
+						client.sendTCP(new ResumeRequest(token));
+						return;
+					} catch (IOException e) {
+						//The server is still unreachable
+					}
+					
+					try {
+						Thread.sleep(RECONNECT_INTERVAL);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				
+				Gdx.app.log("ClientManager", "Failed to reconnect");
+				resumeToken = 0;
+			}
+			
+		}, "client-reconnect");
 		
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	public LatencyStats getLatency(){
+		return latency;
+	}
+	
+	public ClockSync getClock(){
+		return clock;
+	}
+	
+	/**
+	 * @return the estimated server time in ms, 0 until the clock has been synced
+	 */
+	public long getServerTime(){
+		return clock.isSynced() ? clock.getServerTime(TimeUtils.millis()) : 0;
+	}
+	
+	public boolean isPredicting() {
+		return prediction;
+	}
+
+	public void setPrediction(boolean prediction) {
+		this.prediction = prediction;
 	}
 
 	public Client getClient(){
@@ -0,0 +1,76 @@
+package Client.Utils;
+
+import Client.Requests.TimeSyncRequest;
+import Server.Responses.TimeSyncResponse;
+
+/**
+ * Estimates the offset between the local clock and the server's, NTP style. Each exchange gives an offset assuming
+ * the request and response took equally long, the exchange with the shortest round trip among the recent ones is
+ * trusted most since it had the least room for asymmetric delay.
+ */
+public class ClockSync {
+
+	private static final int SAMPLES = 8;
+	
+	private long[] offsets;
+	private long[] roundTrips;
+	private int count;
+	private int next;
+	
+	private volatile long offset;
+	private volatile boolean synced;
+	
+	public ClockSync() {
+		offsets = new long[SAMPLES];
+		roundTrips = new long[SAMPLES];
+	}
+	
+	public TimeSyncRequest createRequest(long now){
+		return new TimeSyncRequest(now);
+	}
+	
+	/**
+	 * @param r
+	 * @param now local time the response arrived in ms
+	 */
+	public synchronized void received(TimeSyncResponse r, long now){
+		
+		long roundTrip = now - r.clientTime;
+		
+		if(roundTrip < 0){
+			return;
+		}
+		
+		offsets[next] = r.serverTime - (r.clientTime + now) / 2;
+		roundTrips[next] = roundTrip;
+		next = (next + 1) % SAMPLES;
+		count = Math.min(count + 1, SAMPLES);
+		
+		int best = 0;
+		for(int i = 1; i < count; ++i){
+			if(roundTrips[i] < roundTrips[best]){
+				best = i;
+			}
+		}
+		
+		offset = offsets[best];
+		synced = true;
+	}
+	
+	/**
+	 * @param now local time in ms
+	 * @return the estimated server time in ms
+	 */
+	public long getServerTime(long now){
+		return now + offset;
+	}
+	
+	public long getOffset(){
+		return offset;
+	}
+	
+	public boolean isSynced(){
+		return synced;
+	}
+	
+}
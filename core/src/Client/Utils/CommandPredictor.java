@@ -0,0 +1,104 @@
+package Client.Utils;
+
+import java.util.ArrayDeque;
+
+import Server.Components.EnergyComponent;
+import Server.Utils.MoveInformation;
+
+/**
+ * Tracks the local player's commands the server has not acknowledged yet so their energy changes can be shown
+ * straight away. Every snapshot carries the sequence of the last command the server applied, the predicted energy
+ * is the server's energy with the remaining pending commands replayed on top.
+ */
+public class CommandPredictor {
+
+	private ArrayDeque<Command> pending;
+	private int sequence;
+	private int serverEnergy;
+	
+	public CommandPredictor(int energy) {
+		pending = new ArrayDeque<Command>();
+		sequence = 0;
+		serverEnergy = energy;
+	}
+	
+	public int nextSequence(){
+		return ++sequence;
+	}
+	
+	/**
+	 * Predicts the move if the player can currently pay for it
+	 * @param sequence
+	 * @param move
+	 * @return false if the move would be rejected for lack of energy
+	 */
+	public boolean predictMove(int sequence, MoveType move){
+		
+		int cost = MoveInformation.getEnergyCost(move);
+		
+		if(getPredictedEnergy() < cost){
+			return false;
+		}
+		
+		pending.addLast(new Command(sequence, -cost, move));
+		return true;
+	}
+	
+	public void predictWord(int sequence, String word){
+		pending.addLast(new Command(sequence, EnergyComponent.ENERGY_PER_LETTER * word.length(), null));
+	}
+	
+	/**
+	 * Drops every command the server has applied
+	 * @param ack the last command sequence applied by the server
+	 * @param rejected the moves the server dropped, bit n is set if the sequence n below the ack was rejected
+	 * @return the latest move that was predicted for a rejected sequence, null if none was
+	 */
+	public MoveType acknowledge(int ack, int rejected){
+		
+		MoveType rolledBack = null;
+		
+		while(!pending.isEmpty() && pending.peekFirst().sequence <= ack){
+			
+			Command command = pending.pollFirst();
+			int offset = ack - command.sequence;
+			
+			if(offset < Integer.SIZE && (rejected >>> offset & 1) != 0){
+				rolledBack = command.move;
+			}
+			
+		}
+		
+		return rolledBack;
+	}
+	
+	public void setServerEnergy(int energy){
+		serverEnergy = energy;
+	}
+	
+	public int getPredictedEnergy(){
+		
+		int energy = serverEnergy;
+		
+		for(Command command : pending){
+			energy = Math.max(0, Math.min(EnergyComponent.MAX_ENERGY, energy + command.energy));
+		}
+		
+		return energy;
+	}
+	
+	private static class Command {
+		
+		private int sequence;
+		private int energy;
+		private MoveType move;
+		
+		private Command(int sequence, int energy, MoveType move) {
+			this.sequence = sequence;
+			this.energy = energy;
+			this.move = move;
+		}
+		
+	}
+	
+}
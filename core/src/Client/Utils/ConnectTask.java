@@ -0,0 +1,196 @@
+package Client.Utils;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.Client;
+
+import Client.Requests.DiscoveryRequest;
+import Server.Responses.DiscoveryResponse;
+import Server.Utils.DiscoveryService;
+
+/**
+ * Connects the client on a background thread so the render loop never waits on the network.
+ * When the host resolves to several addresses they are all probed on the discovery port and the first one to answer is connected to.
+ * Progress and the result are posted to the render thread
+ */
+public class ConnectTask implements Runnable {
+
+	public interface Listener {
+		void progress(String status);
+		void connected();
+		void failed();
+	}
+
+	private Client client;
+	private String host;
+	private InetAddress address;
+	private int tcp;
+	private int udp;
+	private int timeout;
+	private Listener listener;
+
+	private final int BUFFER_SIZE = 64;
+	private final int PROBE_TIMEOUT = 1000; //How long to wait for an address to answer before falling back to the first in ms
+
+	/**
+	 * @param client
+	 * @param host name or address to resolve, ignored if address is set
+	 * @param address
+	 * @param tcp
+	 * @param udp
+	 * @param timeout in ms
+	 * @param listener
+	 */
+	public ConnectTask(Client client, String host, InetAddress address, int tcp, int udp, int timeout, Listener listener) {
+		this.client = client;
+		this.host = host;
+		this.address = address;
+		this.tcp = tcp;
+		this.udp = udp;
+		this.timeout = timeout;
+		this.listener = listener;
+	}
+
+	public void start(){
+		Thread thread = new Thread(this, "client-connect");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void run() {
+
+		try {
+
+			InetAddress target = address;
+
+			if(target == null){
+				post("Looking up " + host, false);
+				target = pickAddress(InetAddress.getAllByName(host));
+			}
+
+			post("Connecting to " + target.getHostAddress(), false);
+			client.connect(timeout, target, tcp, udp);
+
+			post(null, true);
+
+		} catch (IOException e) {
+			Gdx.app.log("ConnectTask", "Failed to connect to " + (address != null ? address.getHostAddress() : host));
+			post(null, false);
+		} catch (IllegalArgumentException e) {
+			Gdx.app.log("ConnectTask", "Failed to connect to " + host);
+			post(null, false);
+		}
+
+	}
+
+	/**
+	 * Sends every candidate a discovery request at once. Servers answer those on their discovery port, so probing
+	 * does not open a game connection the server would have to accept and then drop
+	 * @param candidates
+	 * @return the first address that answered, the first candidate if none did, e.g. because the discovery port is firewalled
+	 * @throws IOException if the probe's socket could not be opened
+	 */
+	private InetAddress pickAddress(InetAddress[] candidates) throws IOException {
+
+		if(candidates.length == 1){
+			return candidates[0];
+		}
+
+		post("Trying " + candidates.length + " addresses", false);
+
+		Kryo kryo = new Kryo();
+		GameUtils.serializeKryoObjects(kryo);
+
+		Output output = new Output(BUFFER_SIZE);
+		kryo.writeClassAndObject(output, new DiscoveryRequest());
+
+		DatagramSocket socket = new DatagramSocket();
+
+		try {
+
+			for(InetAddress candidate : candidates){
+				try {
+					socket.send(new DatagramPacket(output.getBuffer(), output.position(), candidate, DiscoveryService.DEFAULT_PORT));
+				} catch (IOException e) {
+					//No route to that address, e.g. IPv6 on an IPv4 only network
+				}
+			}
+
+			byte[] buffer = new byte[BUFFER_SIZE];
+			DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+			long deadline = TimeUtils.millis() + Math.min(timeout, PROBE_TIMEOUT);
+
+			while(TimeUtils.millis() < deadline){
+
+				socket.setSoTimeout((int)Math.max(1, deadline - TimeUtils.millis()));
+				packet.setData(buffer);
+
+				try {
+					socket.receive(packet);
+				} catch (SocketTimeoutException e) {
+					break;
+				}
+
+				for(InetAddress candidate : candidates){
+					if(candidate.equals(packet.getAddress()) && isDiscoveryResponse(kryo, buffer, packet.getLength())){
+						return candidate;
+					}
+				}
+
+			}
+
+		} finally {
+			socket.close();
+		}
+
+		Gdx.app.log("ConnectTask", "No address of " + host + " answered the probe, trying the first");
+		return candidates[0];
+	}
+
+	private boolean isDiscoveryResponse(Kryo kryo, byte[] buffer, int length){
+
+		try {
+			return kryo.readClassAndObject(new Input(buffer, 0, length)) instanceof DiscoveryResponse;
+		} catch (KryoException e) {
+			return false;
+		}
+
+	}
+
+	/**
+	 * @param status shown to the player, null once the task has finished
+	 * @param success
+	 */
+	private void post(final String status, final boolean success){
+
+		Gdx.app.postRunnable(new Runnable(){
+
+			@Override
+			public void run() {
+
+				if(status != null){
+					listener.progress(status);
+				}else if(success){
+					listener.connected();
+				}else{
+					listener.failed();
+				}
+
+			}
+
+		});
+
+	}
+
+}
@@ -7,22 +7,31 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.esotericsoftware.kryo.Kryo;
 
 import Client.Entities.ClientPlayer;
+import Client.Requests.DiscoveryRequest;
 import Client.Requests.JoinRequest;
 import Client.Requests.KOWordRequest;
+import Client.Requests.KeystrokeRequest;
 import Client.Requests.MessageRequest;
 import Client.Requests.MoveRequest;
 import Client.Requests.ReadyRequest;
+import Client.Requests.ResumeRequest;
 import Client.Requests.StartMatchRequest;
+import Client.Requests.TimeSyncRequest;
 import Client.Requests.WordSubmissionRequest;
-import Server.Responses.AnimationResponse;
+import Server.Responses.BatchResponse;
+import Server.Responses.BatchSerializer;
+import Server.Responses.DiscoveryResponse;
 import Server.Responses.GameOverResponse;
 import Server.Responses.JoinResponse;
-import Server.Responses.KOResponse;
-import Server.Responses.KOUpdateResponse;
 import Server.Responses.MessageResponse;
 import Server.Responses.MoveResponse;
+import Server.Responses.PauseResponse;
+import Server.Responses.ResumeResponse;
+import Server.Responses.SnapshotResponse;
+import Server.Responses.SnapshotSerializer;
 import Server.Responses.StartResponse;
-import Server.Responses.StatResponse;
+import Server.Responses.TimeSyncResponse;
+import Server.Responses.WordQueueResponse;
 import Server.Responses.WordSubmissionResponse;
 import Server.Utils.PlayerState;
 
@@ -47,16 +56,31 @@ public class GameUtils {
 		kryo.register(StartResponse.class);
 		
 		kryo.register(StartMatchRequest.class);
-		kryo.register(StatResponse.class);
 		
-		kryo.register(KOResponse.class);
-		kryo.register(KOUpdateResponse.class);
 		kryo.register(KOWordRequest.class);
 		
-		kryo.register(AnimationResponse.class);
-		
 		kryo.register(GameOverResponse.class);
 		
+		//Only the flagged fields are written
+		kryo.register(SnapshotResponse.class, new SnapshotSerializer());
+		
+		kryo.register(BatchResponse.class, new BatchSerializer());
+		kryo.register(Object[].class);
+		
+		kryo.register(WordQueueResponse.class);
+		kryo.register(String[].class);
+		
+		kryo.register(KeystrokeRequest.class);
+		kryo.register(byte[].class);
+		
+		kryo.register(TimeSyncRequest.class);
+		kryo.register(TimeSyncResponse.class);
+		kryo.register(ResumeRequest.class);
+		kryo.register(ResumeResponse.class);
+		kryo.register(PauseResponse.class);
+		kryo.register(DiscoveryRequest.class);
+		kryo.register(DiscoveryResponse.class);
+		
 		kryo.register(MoveType.class);
 		kryo.register(PlayerState.class);
 		
@@ -0,0 +1,167 @@
+package Client.Utils;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InterfaceAddress;
+import java.net.NetworkInterface;
+import java.net.SocketTimeoutException;
+import java.util.Enumeration;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import Client.Requests.DiscoveryRequest;
+import Server.Responses.DiscoveryResponse;
+
+/**
+ * Broadcasts a discovery request on a background thread and reports every server that answers.
+ * Results are posted to the render thread so listeners can update the UI directly
+ */
+public class HostDiscovery implements Runnable {
+
+	public interface Listener {
+		void hostFound(LanHost host);
+		void finished();
+	}
+	
+	private int port;
+	private int timeout;
+	private Listener listener;
+	
+	private final int BUFFER_SIZE = 64;
+	
+	/**
+	 * @param port the port servers answer discovery requests on
+	 * @param timeout how long to wait for answers in ms
+	 * @param listener
+	 */
+	public HostDiscovery(int port, int timeout, Listener listener) {
+		this.port = port;
+		this.timeout = timeout;
+		this.listener = listener;
+	}
+	
+	public void start(){
+		Thread thread = new Thread(this, "client-discovery");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	@Override
+	public void run() {
+		
+		DatagramSocket socket = null;
+		
+		try {
+			
+			Kryo kryo = new Kryo();
+			GameUtils.serializeKryoObjects(kryo);
+			
+			Output output = new Output(BUFFER_SIZE);
+			kryo.writeClassAndObject(output, new DiscoveryRequest());
+			
+			socket = new DatagramSocket();
+			socket.setBroadcast(true);
+			
+			broadcast(socket, output.getBuffer(), output.position());
+			
+			byte[] buffer = new byte[BUFFER_SIZE];
+			DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+			long deadline = TimeUtils.millis() + timeout;
+			
+			while(TimeUtils.millis() < deadline){
+				
+				socket.setSoTimeout((int)Math.max(1, deadline - TimeUtils.millis()));
+				packet.setData(buffer);
+				
+				try {
+					socket.receive(packet);
+				} catch (SocketTimeoutException e) {
+					break;
+				}
+				
+				try {
+					
+					Object object = kryo.readClassAndObject(new Input(buffer, 0, packet.getLength()));
+					
+					if(object instanceof DiscoveryResponse){
+						post(new LanHost(packet.getAddress(), (DiscoveryResponse)object, TimeUtils.millis()));
+					}
+					
+				} catch (KryoException e) {
+					//Not a discovery response, ignored
+				}
+				
+			}
+			
+		} catch (IOException e) {
+			Gdx.app.log("HostDiscovery", "Failed to search for hosts");
+		} finally {
+			
+			if(socket != null){
+				socket.close();
+			}
+			
+			post(null);
+		}
+		
+	}
+	
+	/**
+	 * Sends the request to the global broadcast address and the broadcast address of every interface,
+	 * the global one is not forwarded on every platform
+	 */
+	private void broadcast(DatagramSocket socket, byte[] data, int length) throws IOException {
+		
+		socket.send(new DatagramPacket(data, length, InetAddress.getByName("255.255.255.255"), port));
+		
+		Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
+		
+		while(interfaces != null && interfaces.hasMoreElements()){
+			
+			for(InterfaceAddress address : interfaces.nextElement().getInterfaceAddresses()){
+				
+				if(address.getBroadcast() != null){
+					
+					try {
+						socket.send(new DatagramPacket(data, length, address.getBroadcast(), port));
+					} catch (IOException e) {
+						//The interface is down
+					}
+					
+				}
+				
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Hands the host to the listener on the render thread
+	 * @param host null once discovery has finished
+	 */
+	private void post(final LanHost host){
+		
+		Gdx.app.postRunnable(new Runnable(){
+			
+			@Override
+			public void run() {
+				if(host != null){
+					listener.hostFound(host);
+				}else{
+					listener.finished();
+				}
+			}
+			
+		});
+		
+	}
+	
+}
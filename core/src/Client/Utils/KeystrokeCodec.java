@@ -0,0 +1,131 @@
+package Client.Utils;
+
+import java.util.Arrays;
+
+import Client.Requests.KeystrokeRequest;
+
+/**
+ * Encodes typed keys as pairs of varints: the time since the previous key in ms followed by the character.
+ * Most pairs fit in two bytes. The client records keys as they are typed and sends them in batches,
+ * the server decodes them straight from the received bytes.
+ */
+public class KeystrokeCodec {
+
+	public static final char BACKSPACE = '\b';
+	
+	private byte[] buffer;
+	private int length;
+	private long lastTime;
+	
+	public KeystrokeCodec() {
+		buffer = new byte[64];
+		length = 0;
+		lastTime = -1;
+	}
+	
+	/**
+	 * @param key the typed character
+	 * @param time when the key was typed in ms
+	 */
+	public void record(char key, long time){
+		
+		long delta = lastTime < 0 ? 0 : Math.max(0, time - lastTime);
+		lastTime = time;
+		
+		writeVarint((int)Math.min(delta, Integer.MAX_VALUE));
+		writeVarint(key);
+	}
+	
+	public boolean hasKeystrokes(){
+		return length > 0;
+	}
+	
+	/**
+	 * @return a request holding every key recorded since the last flush
+	 */
+	public KeystrokeRequest flush(){
+		KeystrokeRequest r = new KeystrokeRequest(Arrays.copyOf(buffer, length));
+		length = 0;
+		return r;
+	}
+	
+	private void writeVarint(int value){
+		
+		if(length + 5 > buffer.length){
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		
+		while((value & ~0x7F) != 0){
+			buffer[length++] = (byte)((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		
+		buffer[length++] = (byte)value;
+	}
+	
+	/**
+	 * Decodes every key in the data, stops at the first malformed pair
+	 * @param data
+	 * @param handler
+	 * @return the number of keys decoded
+	 */
+	public static int decode(byte[] data, Handler handler){
+		
+		int keys = 0;
+		int position = 0;
+		
+		while(position < data.length){
+			
+			//Each read returns the value and the position after it
+			long delta = readVarint(data, position);
+			if(delta < 0){
+				break;
+			}
+			position = (int)(delta >>> 32);
+			
+			long key = readVarint(data, position);
+			if(key < 0){
+				break;
+			}
+			position = (int)(key >>> 32);
+			
+			handler.keystroke((int)delta, (char)key);
+			++keys;
+		}
+		
+		return keys;
+	}
+	
+	/**
+	 * @return the value in the low 32 bits and the position after it in the high bits, -1 if the data ends early
+	 */
+	private static long readVarint(byte[] data, int position){
+		
+		int value = 0;
+		
+		for(int shift = 0; shift < 35; shift += 7){
+			
+			if(position >= data.length){
+				return -1;
+			}
+			
+			byte b = data[position++];
+			value |= (b & 0x7F) << shift;
+			
+			if((b & 0x80) == 0){
+				return ((long)position << 32) | (value & 0xFFFFFFFFL);
+			}
+		}
+		
+		return -1;
+	}
+	
+	public interface Handler {
+		/**
+		 * @param delta ms since the previous key
+		 * @param key
+		 */
+		void keystroke(int delta, char key);
+	}
+	
+}
@@ -0,0 +1,55 @@
+package Client.Utils;
+
+import java.net.InetAddress;
+
+import Server.Responses.DiscoveryResponse;
+
+/**
+ * A server found on the LAN along with the load it last reported
+ */
+public class LanHost implements Comparable<LanHost> {
+
+	public InetAddress address;
+	public DiscoveryResponse info;
+	public long seen; //When the host last answered in ms
+	
+	public LanHost(InetAddress address, DiscoveryResponse info, long seen) {
+		this.address = address;
+		this.info = info;
+		this.seen = seen;
+	}
+	
+	/**
+	 * @return whether the server's shards are falling behind their tick rate
+	 */
+	public boolean isLagging(){
+		return info.timeStep > 0 && info.tickLag * 2 > info.timeStep;
+	}
+	
+	/**
+	 * Orders hosts from least to most loaded, a server that is ticking late is always worse than one that is not
+	 */
+	@Override
+	public int compareTo(LanHost other) {
+		
+		if(isLagging() != other.isLagging()){
+			return isLagging() ? 1 : -1;
+		}
+		
+		if(info.players != other.info.players){
+			return info.players < other.info.players ? -1 : 1;
+		}
+		
+		if(info.matches != other.info.matches){
+			return info.matches < other.info.matches ? -1 : 1;
+		}
+		
+		return info.tickLag < other.info.tickLag ? -1 : (info.tickLag == other.info.tickLag ? 0 : 1);
+	}
+	
+	@Override
+	public String toString() {
+		return address.getHostAddress() + "  " + info.players + " players  " + info.matches + " matches" + (isLagging() ? "  (busy)" : "");
+	}
+	
+}
@@ -1,6 +1,6 @@
 package Client.Worlds;
 
-import java.util.HashMap;
+import java.util.ArrayDeque;
 import java.util.LinkedList;
 import com.badlogic.ashley.core.Engine;
 import com.badlogic.gdx.Gdx;
@@ -14,25 +14,29 @@ import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.ui.TextField;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.StretchViewport;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.Listener;
 
 import Client.Entities.ClientPlayer;
+import Client.Listeners.BatchResponseListener;
 import Client.Requests.MoveRequest;
 import Client.Requests.WordSubmissionRequest;
 import Client.Systems.SpriteRenderSystem;
 import Client.Systems.UiRenderSystem;
 import Client.Utils.ClientManager;
+import Client.Utils.CommandPredictor;
+import Client.Utils.KeystrokeCodec;
 import Client.Utils.Constants;
 import Client.Utils.GameUtils;
 import Client.Utils.MenuManager;
 import Client.Utils.MoveType;
-import Server.Responses.AnimationResponse;
 import Server.Responses.GameOverResponse;
-import Server.Responses.KOResponse;
-import Server.Responses.KOUpdateResponse;
-import Server.Responses.StatResponse;
+import Server.Responses.PauseResponse;
+import Server.Responses.SnapshotResponse;
+import Server.Responses.StartResponse;
+import Server.Responses.WordQueueResponse;
 import Server.Responses.WordSubmissionResponse;
 
 public class ClientGameWorld {
@@ -41,15 +45,19 @@ public class ClientGameWorld {
 	private StretchViewport view;
 	private Engine engine;
 	
-	private HashMap<String, ClientPlayer> players;
+	private ClientPlayer[] players;
+	private int slot;
 	private LinkedList<Listener> listeners;
+	private BatchResponseListener dispatcher;
 	
 	private MenuManager menu;
 	private TextField field;
 	
 	private String word;
+	private ArrayDeque<String> words; //Upcoming words, the first being the current word
 	private Label wordLabel;
 	private Label koTimeLabel;
+	private Label pauseLabel; //Shown while the match waits for a disconnected player
 	
 	private SpriteRenderSystem spriteSystem;
 	private UiRenderSystem uiSystem;
@@ -63,6 +71,17 @@ public class ClientGameWorld {
 	private final float UI_ELEMENT_GAP = 10;
 	
 	private boolean knockedOut;
+	private boolean paused; //The server drops moves while it waits for a disconnected player
+	private int lastSequence; //Latest unreliable snapshot applied
+	
+	//Shows the local player's moves and energy before the server confirms them
+	private boolean prediction;
+	private CommandPredictor predictor;
+	
+	//Keys typed into the field are streamed to the server in small batches
+	private KeystrokeCodec keystrokes;
+	private float keystrokeTime;
+	private final float KEYSTROKE_INTERVAL = .05f;
 	
 	private final Music MUSIC_SOUND;
 	private final float MUSIC_VOLUME = .05f;
@@ -77,7 +96,7 @@ public class ClientGameWorld {
 	private final float CORRECT_WORD_VOLUME = .3f;
 	
 	
-	public ClientGameWorld(StretchViewport view, ClientManager client, String enemyName) {
+	public ClientGameWorld(StretchViewport view, ClientManager client, StartResponse start) {
 		
 		this.client = client;	
 		this.view = view;
@@ -85,6 +104,13 @@ public class ClientGameWorld {
 		
 		completed = false;
 		knockedOut = false;
+		paused = false;
+		lastSequence = 0;
+		
+		prediction = client.isPredicting();
+		
+		keystrokes = new KeystrokeCodec();
+		keystrokeTime = 0;
 		
 		//Sounds
 		MUSIC_SOUND = Gdx.audio.newMusic(Constants.MUSIC);
@@ -107,14 +133,28 @@ public class ClientGameWorld {
 				}
 				return false;
 			}
+			
+			@Override
+			public boolean keyTyped(InputEvent event, char character) {
+				keystrokes.record(character, TimeUtils.millis());
+				return false;
+			}
 
 		});
 		
-		wordLabel = menu.addFloatingText("First", (field.getX() + field.getWidth()/2), (field.getHeight() + field.getY()) + 5);
+		word = "First";
+		words = new ArrayDeque<String>();
+		words.add(word);
+		
+		wordLabel = menu.addFloatingText(word, (field.getX() + field.getWidth()/2), (field.getHeight() + field.getY()) + 5);
 		wordLabel.setPosition((field.getX() + field.getWidth()/2) - wordLabel.getWidth()/2 , wordLabel.getY());
 		
 		listeners = new LinkedList<Listener>();
 		
+		//Match messages arrive batched per server tick
+		dispatcher = new BatchResponseListener();
+		client.getClient().addListener(dispatcher);
+		
 		//Word Response Listener
 		listeners.push(new Listener(){
 			
@@ -125,109 +165,98 @@ public class ClientGameWorld {
 					
 					WordSubmissionResponse r = (WordSubmissionResponse) object;
 					
+					//Knockout words are handed out one at a time
 					if(r.success){
 						Gdx.app.log("Client Game World", "Receieved new word");
 						CORRECT_WORD_SOUND.play(CORRECT_WORD_VOLUME);
+						words.clear();
+						words.add(r.newWord);
 						changeWord(r.newWord);
 					}
 				}			
 			}
 			
 		});		
-		client.getClient().addListener(listeners.peek());
+		dispatcher.addListener(listeners.peek());
 		
-		//KO Listener
+		//Word Queue Listener
 		listeners.push(new Listener(){
 			
 			@Override
 			public void received(Connection connection, Object object) {
-				
-				if(object instanceof KOResponse){
-					KOResponse r = (KOResponse) object;
-					beginKO(r);
-				}			
+				if(object instanceof WordQueueResponse){
+					updateWordQueue((WordQueueResponse)object);
+				}
 			}
 			
 		});
-		client.getClient().addListener(listeners.peek());
+		dispatcher.addListener(listeners.peek());
 		
-		//KO Update Listener
+		//Snapshot Listener
 		listeners.push(new Listener(){
+			
 			@Override
 			public void received(Connection connection, Object object) {
-				
-				if(object instanceof KOUpdateResponse){
-					updateKOTime((KOUpdateResponse)object);
+				if(object instanceof SnapshotResponse){
+					applySnapshot((SnapshotResponse)object);
 				}
-				
 			}
-
-		});
-		client.getClient().addListener(listeners.peek());
-		
-		//Animation Listener
-		listeners.push(new Listener(){
-			
-			public void received(Connection connection, Object object) {
-				
-				if(object instanceof AnimationResponse){
-					PUNCH_SOUND.play(PUNCH_VOLUME);
-					setAnimation((AnimationResponse)object);
-				}
-				
-			};
 			
 		});
-		client.getClient().addListener(listeners.peek());
+		dispatcher.addListener(listeners.peek());
 		
-		//Stat Listener
+		//Game Over Listener
 		listeners.push(new Listener(){
+			
 			@Override
 			public void received(Connection connection, Object object) {
-				if(object instanceof StatResponse){
-					setStats((StatResponse)object);
+				if(object instanceof GameOverResponse){
+					BELL_SOUND.play(BELL_VOLUME);
+					gameover((GameOverResponse)object);
 				}
 			}
-
+			
 		});
-		client.getClient().addListener(listeners.peek());
+		dispatcher.addListener(listeners.peek());
 		
-		//Game Over Listener
+		//Pause Listener
 		listeners.push(new Listener(){
 			
 			@Override
 			public void received(Connection connection, Object object) {
-				if(object instanceof GameOverResponse){
-					BELL_SOUND.play(BELL_VOLUME);
-					gameover((GameOverResponse)object);
+				if(object instanceof PauseResponse){
+					setPaused((PauseResponse)object);
 				}
 			}
 			
 		});
-		client.getClient().addListener(listeners.peek());
+		dispatcher.addListener(listeners.peek());
 
 		
-		//Players
-		players = new HashMap<String, ClientPlayer>();
-		players.put(client.name, new ClientPlayer(client.name, Constants.V_WIDTH/4, Constants.V_HEIGHT/2, 64, 64));
-		players.put(enemyName, new ClientPlayer(enemyName, Constants.V_WIDTH * 0.75f, Constants.V_HEIGHT/2, -64, 64));
+		//Players, indexed by the slots the server assigned
+		slot = start.slot;
+		players = new ClientPlayer[Math.max(start.slot, start.enemySlot) + 1];
+		players[start.slot] = new ClientPlayer(client.name, Constants.V_WIDTH/4, Constants.V_HEIGHT/2, 64, 64);
+		players[start.enemySlot] = new ClientPlayer(start.enemyName, Constants.V_WIDTH * 0.75f, Constants.V_HEIGHT/2, -64, 64);
 		
 		//Adding Stats UI
-		players.get(client.name).addUI(menu.addStatsUI(Constants.V_WIDTH/2 - UI_ELEMENT_WIDTH - UI_ELEMENT_GAP, Constants.V_HEIGHT - UI_ELEMENT_HEIGHT - 5, UI_ELEMENT_WIDTH, UI_ELEMENT_HEIGHT, 20));
+		players[slot].addUI(menu.addStatsUI(Constants.V_WIDTH/2 - UI_ELEMENT_WIDTH - UI_ELEMENT_GAP, Constants.V_HEIGHT - UI_ELEMENT_HEIGHT - 5, UI_ELEMENT_WIDTH, UI_ELEMENT_HEIGHT, 20));
 		
 		//Adds Animations to the player
-		GameUtils.createBoxerAnimation(players.get(client.name), Constants.PLAYER_SPRITE_SHEET);
-		GameUtils.createBoxerAnimation(players.get(enemyName), Constants.ENEMY_SPRITE_SHEET);
+		GameUtils.createBoxerAnimation(players[start.slot], Constants.PLAYER_SPRITE_SHEET);
+		GameUtils.createBoxerAnimation(players[start.enemySlot], Constants.ENEMY_SPRITE_SHEET);
+		
+		predictor = new CommandPredictor((int)players[slot].getStatComponent().energy);
 		
 		engine = new Engine();
 		
-		engine.addEntity(players.get(client.name));
-		engine.addEntity(players.get(enemyName));
+		engine.addEntity(players[start.slot]);
+		engine.addEntity(players[start.enemySlot]);
 		
 		spriteSystem = new SpriteRenderSystem(name, view);
 		engine.addSystem(spriteSystem);
 		
-		uiSystem = new UiRenderSystem(players.get(client.name), view);
+		uiSystem = new UiRenderSystem(players[slot], view);
 		engine.addSystem(uiSystem);
 		
 		MUSIC_SOUND.setLooping(true);
@@ -238,25 +267,129 @@ public class ClientGameWorld {
 	}
 
 
-	private void beginKO(KOResponse r) {
+	/**
+	 * Applies the fields the server flagged as changed this tick
+	 * @param r
+	 */
+	private void applySnapshot(SnapshotResponse r) {
+		
+		//Unreliable snapshots can arrive late or out of order, only newer ones are applied
+		if(r.sequence != 0){
+			
+			if(r.sequence <= lastSequence){
+				return;
+			}
+			
+			lastSequence = r.sequence;
+		}
+		
+		if(r.has(SnapshotResponse.ACK)){
+			
+			MoveType rolledBack = predictor.acknowledge(r.ack, r.rejected);
+			
+			//The server dropped a move that was already shown
+			if(prediction && rolledBack != null && players[slot].animationComponent.move == rolledBack){
+				setAnimation(players[slot], MoveType.Idle);
+			}
+			
+		}
+		
+		if(r.has(SnapshotResponse.HEALTH) || r.has(SnapshotResponse.ENERGY)){
+			players[slot].updateStats(r);
+		}
+		
+		if(r.has(SnapshotResponse.ENERGY)){
+			predictor.setServerEnergy(r.energy);
+		}
+		
+		//Replays the commands the server has not applied yet on top of its energy
+		if(prediction && (r.has(SnapshotResponse.ACK) || r.has(SnapshotResponse.ENERGY))){
+			players[slot].getStatComponent().energy = predictor.getPredictedEnergy();
+		}
+		
+		if(r.has(SnapshotResponse.ANIMATION)){
+			
+			PUNCH_SOUND.play(PUNCH_VOLUME);
+			
+			for(int i = 0; i < r.animations.length && i < players.length; ++i){
+				//Predicted moves have already been animated
+				if(prediction && i == slot){
+					continue;
+				}
+				
+				if(r.animations[i] != null && players[i] != null){
+					setAnimation(players[i], r.animations[i]);
+				}
+			}
+			
+		}
+		
+		if(r.has(SnapshotResponse.KNOCKOUT)){
+			beginKO(r.koSlot, r.koEnable);
+		}
 		
-		knockedOut = r.enable;
+		if(r.has(SnapshotResponse.KO_TIME)){
+			updateKOTime(r.koTime);
+		}
 		
-		if(r.enable){
-			players.get(r.name).setDead(true);
-			koTimeLabel = menu.addFloatingText("0", Constants.V_WIDTH/2, Constants.V_HEIGHT/2);
+	}
+	
+	private void beginKO(int koSlot, boolean enable) {
+		
+		knockedOut = enable;
+		
+		if(enable){
+			players[koSlot].setDead(true);
+			
+			//Repeated when a resumed player is resynced
+			if(koTimeLabel == null){
+				koTimeLabel = menu.addFloatingText("0", Constants.V_WIDTH/2, Constants.V_HEIGHT/2);
+			}
 		}else{
-			players.get(r.name).setDead(false);
+			players[koSlot].setDead(false);
 			menu.removeActor(koTimeLabel);
 			koTimeLabel = null;
 		}
 		
 	}
 	
-	private void updateKOTime(KOUpdateResponse r) {
+	private void setPaused(PauseResponse r) {
+		
+		paused = r.paused;
+		
+		if(pauseLabel != null){
+			menu.removeActor(pauseLabel);
+			pauseLabel = null;
+		}
+		
+		if(r.paused){
+			pauseLabel = menu.addFloatingText("Waiting for " + r.name + " to reconnect", 0, 0);
+			pauseLabel.setPosition(Constants.V_WIDTH/2 - pauseLabel.getWidth()/2, Constants.V_HEIGHT * 0.75f);
+		}
+		
+	}
+	
+	private void updateKOTime(int time) {
 		if(koTimeLabel != null){
-			koTimeLabel.setText(r.time + "");
+			koTimeLabel.setText(time + "");
+		}
+	}
+	
+	private void updateWordQueue(WordQueueResponse r){
+		
+		if(r.reset){
+			words.clear();
+		}
+		
+		for(int i = 0; i < r.count; ++i){
+			words.addLast(r.words[i]);
+		}
+		
+		//Only replaces the shown word if it changed so the player's typing is not cleared
+		if(!words.isEmpty() && !words.peekFirst().equals(word)){
+			changeWord(words.peekFirst());
 		}
+		
 	}
 	
 	private void changeWord(String word){
@@ -269,12 +402,8 @@ public class ClientGameWorld {
 		field.setText("");
 	}
 	
-	private void setAnimation(AnimationResponse r){
-		
-		Gdx.app.log("ClientGameWorld setAnimation", "Setting " + r.name + "'s Animation");
-		
-		ClientPlayer player = players.get(r.name);
-		player.animationComponent.move = r.move;
+	private void setAnimation(ClientPlayer player, MoveType move){
+		player.animationComponent.move = move;
 		player.animationComponent.stateTime = 0;
 	}
 	
@@ -283,44 +412,86 @@ public class ClientGameWorld {
 		text = text.toUpperCase();
 		
 		if(!text.equals("") && text.equals(word.toUpperCase())){		
-			client.getClient().sendTCP(new WordSubmissionRequest(text));
+			//The server checks the word against its keystrokes so they have to arrive first
+			sendKeystrokes();
+			
+			int sequence = predictor.nextSequence();
+			client.getClient().sendTCP(new WordSubmissionRequest(text, sequence));
+			
+			//Moves on straight away, the server still validates the word and resends the queue if it disagrees
+			if(!knockedOut){
+				
+				if(prediction){
+					predictor.predictWord(sequence, word);
+					players[slot].getStatComponent().energy = predictor.getPredictedEnergy();
+				}
+				
+				CORRECT_WORD_SOUND.play(CORRECT_WORD_VOLUME);
+				words.pollFirst();
+				changeWord(words.isEmpty() ? "" : words.peekFirst());
+			}
 			
 		}else{
 			checkForMove(text.toLowerCase());
 		}
 	}
 	
-	private void setStats(StatResponse r) {
-		players.get(client.name).updateStats(r);
-	}
-	
 	private void checkForMove(String move){
 		
 		if(!knockedOut) {
 			if(move.equals("jab")){
-				client.getClient().sendTCP(new MoveRequest(client.name, MoveType.JAB));
+				sendMove(MoveType.JAB);
 				field.setText("");
 			}else if(move.equals("block")){
-				client.getClient().sendTCP(new MoveRequest(client.name, MoveType.BLOCK));
+				sendMove(MoveType.BLOCK);
 				field.setText("");
 			}else if(move.equals("cross")){
-				client.getClient().sendTCP(new MoveRequest(client.name, MoveType.CROSS));
+				sendMove(MoveType.CROSS);
 				field.setText("");
 			}else if(move.equals("counter")){
-				client.getClient().sendTCP(new MoveRequest(client.name, MoveType.COUNTER));
+				sendMove(MoveType.COUNTER);
 				field.setText("");
 			}else if(move.equals("hook")){
-				client.getClient().sendTCP(new MoveRequest(client.name, MoveType.HOOK));
+				sendMove(MoveType.HOOK);
 				field.setText("");
 			}else if(move.equals("uppercut")){
-				client.getClient().sendTCP(new MoveRequest(client.name, MoveType.UPPERCUT));
+				sendMove(MoveType.UPPERCUT);
 				field.setText("");
 			}
 		}
 		
 	}
 	
+	private void sendMove(MoveType move){
+		
+		int sequence = predictor.nextSequence();
+		client.getClient().sendTCP(new MoveRequest(move, sequence, client.getServerTime()));
+		
+		//Only plays moves the player can pay for, the server would drop the rest
+		if(prediction && !paused && predictor.predictMove(sequence, move)){
+			PUNCH_SOUND.play(PUNCH_VOLUME);
+			setAnimation(players[slot], move);
+			players[slot].getStatComponent().energy = predictor.getPredictedEnergy();
+		}
+		
+	}
+	
+	private void sendKeystrokes(){
+		
+		if(keystrokes.hasKeystrokes()){
+			client.getClient().sendTCP(keystrokes.flush());
+		}
+		
+		keystrokeTime = 0;
+	}
+	
 	public void render(float delta) {
+		
+		keystrokeTime += delta;
+		if(keystrokeTime >= KEYSTROKE_INTERVAL){
+			sendKeystrokes();
+		}
+		
 		engine.update(delta);
 		menu.render(delta);
 	}
@@ -345,6 +516,10 @@ public class ClientGameWorld {
 			menu.removeActor(koTimeLabel);
 		}
 		
+		if(pauseLabel != null){
+			menu.removeActor(pauseLabel);
+		}
+		
 		Label label = menu.addFloatingText(r.name + " Wins!", 0, 0);
 		label.setPosition(Constants.V_WIDTH/2 - label.getWidth()/2, Constants.V_HEIGHT/3.5f - label.getHeight()/2);
 		
@@ -380,9 +555,8 @@ public class ClientGameWorld {
 		PUNCH_SOUND.dispose();
 		CORRECT_WORD_SOUND.dispose();
 		
-		while(!listeners.isEmpty()){
-			client.getClient().removeListener(listeners.poll());
-		}
+		client.getClient().removeListener(dispatcher);
+		listeners.clear();
 		
 	}
 	
@@ -4,8 +4,10 @@ import com.badlogic.ashley.core.Component;
 
 public class EnergyComponent implements Component{
 
-	public final int MAX_ENERGY = 100;
-	public final int ENERGY_PER_LETTER = 2;
+	public static final int MAX_ENERGY = 100;
+	public static final int ENERGY_PER_LETTER = 2;
 	public int energy = 50;
 	
+	public boolean dirty = false; //Set whenever energy changes so it is replicated at the end of the tick
+	
 }
@@ -8,4 +8,6 @@ public class HealthComponent implements Component{
 	public int maxHealth = 100;
 	public int knockouts = 0;
 	
+	public boolean dirty = false; //Set whenever health changes so it is replicated at the end of the tick
+	
 }
@@ -6,6 +6,7 @@ public class IdComponent implements Component{
 	
 	public String name;
 	public int id;
+	public int slot;
 	
 	public IdComponent(String name, int id) {
 		this.name = name;
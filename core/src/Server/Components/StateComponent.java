@@ -10,9 +10,13 @@ public class StateComponent implements Component{
 	public PlayerState state;
 	public MoveType move;
 	
+	public MoveType animation; //Animation cue to replicate at the end of the tick
+	public boolean dirty;
+	
 	public StateComponent(PlayerState state) {
 		this.state = state;
 		move = MoveType.Idle;
+		dirty = false;
 	}
 
 }
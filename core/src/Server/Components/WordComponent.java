@@ -1,13 +1,67 @@
 package Server.Components;
 
+import java.util.Random;
+
 import com.badlogic.ashley.core.Component;
 
+import Server.Responses.WordQueueResponse;
+
 public class WordComponent implements Component{
 
-	public String word;
+	//The word the player has to type now followed by the words already sent to the client, a ring of fixed size
+	//so the queue is walked by index without an iterator
+	public String[] words;
+	public int head;
+	public int size;
+	
+	//Draws the player's words, seeded by their match so a recording replays the same words
+	public Random random;
 	
 	public WordComponent(String word){
-		this.word = word;
+		words = new String[WordQueueResponse.MAX_WORDS];
+		random = new Random();
+		addLast(word);
+	}
+	
+	/**
+	 * @return the word the player has to type now, null if the queue is empty
+	 */
+	public String getWord(){
+		return size == 0 ? null : words[head];
+	}
+	
+	/**
+	 * @param index from the current word
+	 * @return
+	 */
+	public String get(int index){
+		return words[(head + index) % words.length];
+	}
+	
+	/**
+	 * @param word
+	 * @return false if the queue is full
+	 */
+	public boolean addLast(String word){
+		
+		if(size == words.length){
+			return false;
+		}
+		
+		words[(head + size) % words.length] = word;
+		++size;
+		
+		return true;
+	}
+	
+	public void pollFirst(){
+		
+		if(size > 0){
+			words[head] = null;
+			head = (head + 1) % words.length;
+			--size;
+		}
+		
 	}
 	
 }
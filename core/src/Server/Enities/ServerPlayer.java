@@ -1,8 +1,5 @@
 package Server.Enities;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
 import com.badlogic.ashley.core.Entity;
 import com.esotericsoftware.kryonet.Connection;
 
@@ -12,6 +9,8 @@ import Server.Components.IdComponent;
 import Server.Components.StateComponent;
 import Server.Components.WordComponent;
 import Server.Utils.PlayerState;
+import Server.Utils.StateTimerWheel;
+import Server.Utils.StateTimerWheel.StateTimer;
 
 public class ServerPlayer extends Entity{
 	
@@ -21,15 +20,15 @@ public class ServerPlayer extends Entity{
 	private EnergyComponent energyComponent;
 	private WordComponent wordComponent;
 	
-	private Timer timer;
-	
-	private long TIMEOUT = 1000;
+	private StateTimer stateTimer;
+	private Connection connection;
 	
-	private boolean ready;
+	private volatile boolean ready; //Set on the network thread, cleared by the lobby's pairing passes
 	
 	public ServerPlayer(String name, Connection connection) {
 		
-		timer = new Timer();
+		stateTimer = new StateTimer();
+		this.connection = connection;
 		
 		this.ready = false;
 		
@@ -48,19 +47,14 @@ public class ServerPlayer extends Entity{
 		
 	}
 
-	public void setStateTimer() {
-		
-		timer.cancel();
-		
-		timer = new Timer();
-		
-		timer.schedule(new TimerTask(){
-			@Override
-			public void run() {
-				stateComponent.state = PlayerState.OPEN;
-			}
-			
-		}, TIMEOUT);
+	/**
+	 * Puts the player into a timed state that returns to OPEN once the timeout has passed on the wheel
+	 * @param wheel
+	 * @param state
+	 * @param timeout in ms
+	 */
+	public void setStateTimer(StateTimerWheel wheel, PlayerState state, long timeout) {
+		wheel.schedule(stateTimer, stateComponent, state, timeout);
 	}
 
 	public void setReady(boolean ready) {
@@ -78,9 +72,36 @@ public class ServerPlayer extends Entity{
 	public int getID(){
 		return idComponent.id;
 	}
+	
+	public Connection getConnection(){
+		return connection;
+	}
+	
+	/**
+	 * Moves the player onto the connection they resumed their session from
+	 * @param connection
+	 */
+	public void rebind(Connection connection){
+		this.connection = connection;
+		idComponent.id = connection.getID();
+	}
+	
+	/**
+	 * The player's index within their current match
+	 * @return
+	 */
+	public int getSlot(){
+		return idComponent.slot;
+	}
+	
+	public void setSlot(int slot){
+		idComponent.slot = slot;
+	}
 
 	public void reset() {
 		
+		stateTimer.cancel();
+		
 		removeAll();
 		
 		healthComponent = new HealthComponent();
@@ -1,13 +1,14 @@
 package Server.Listeners;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.badlogic.gdx.Gdx;
 import com.esotericsoftware.kryonet.Connection;
 import Client.Requests.JoinRequest;
 import Server.Enities.ServerPlayer;
 import Server.Responses.JoinResponse;
 import Server.Responses.MessageResponse;
+import Server.Utils.ServerLog;
+import Server.World.SessionRegistry;
 
 import com.esotericsoftware.kryonet.Listener;
 import com.esotericsoftware.kryonet.Server;
@@ -15,11 +16,13 @@ import com.esotericsoftware.kryonet.Server;
 public class JoinRequestListener extends Listener {
 	
 	private Server server;
-	private HashMap<Integer, ServerPlayer> players;
+	private ConcurrentHashMap<Integer, ServerPlayer> players;
+	private SessionRegistry sessions;
 	
-	public JoinRequestListener(HashMap<Integer, ServerPlayer> players, Server server) {
+	public JoinRequestListener(ConcurrentHashMap<Integer, ServerPlayer> players, Server server, SessionRegistry sessions) {
 		this.players = players;
 		this.server = server;
+		this.sessions = sessions;
 	}
 
 	@Override
@@ -29,23 +32,32 @@ public class JoinRequestListener extends Listener {
 			
 			JoinRequest r = (JoinRequest)object;
 			
-			Gdx.app.log("Server - JoinRequestListener: ", r.name + " has requested to join the game");
+			ServerLog.log("Server - JoinRequestListener: ", r.name + " has requested to join the game");
 			
 			if(addPlayer(connection, r.name)){
 				
-				Gdx.app.log("Join Request Listener: ", r.name + " has joined the game");
+				ServerLog.log("Join Request Listener: ", r.name + " has joined the game");
 				
-				players.put(connection.getID(), new ServerPlayer(r.name, connection));
+				ServerPlayer player = new ServerPlayer(r.name, connection);
+				players.put(connection.getID(), player);
 				
-				for(int key : players.keySet()){
-					server.sendToTCP(connection.getID(), new JoinResponse(players.get(key).getName(), true));
+				for(ServerPlayer other : players.values()){
+					
+					JoinResponse response = new JoinResponse(other.getName(), true);
+					
+					if(other == player){
+						response.resumeToken = sessions.create(player);
+						response.resumeGrace = sessions.getGracePeriod();
+					}
+					
+					server.sendToTCP(connection.getID(), response);
 				}
 				
 				server.sendToAllExceptTCP(connection.getID(), new JoinResponse(r.name, true));
 				server.sendToAllExceptTCP(connection.getID(), new MessageResponse(r.name.toUpperCase(), " HAS JOINED THE LOBBY"));
 				
 			}else{
-				Gdx.app.log("Join Request Listener: ", r.name + " has failed to join the game");
+				ServerLog.log("Join Request Listener: ", r.name + " has failed to join the game");
 				server.sendToTCP(connection.getID(), new JoinResponse(r.name, false));
 			}
 			
@@ -56,9 +68,9 @@ public class JoinRequestListener extends Listener {
 	private boolean addPlayer(Connection connection, String name) {
 		
 		if(!players.containsKey(connection.getID())){
-			for(int key : players.keySet()){
-				if(players.get(key).getName().equals(name) ){
-					Gdx.app.log("Server - JoinRequestListener", name + " tried to join the lobby.");
+			for(ServerPlayer other : players.values()){
+				if(other.getName().equals(name) ){
+					ServerLog.log("Server - JoinRequestListener", name + " tried to join the lobby.");
 					return false;
 				}
 			}
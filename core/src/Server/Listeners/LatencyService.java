@@ -0,0 +1,126 @@
+package Server.Listeners;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.FrameworkMessage.Ping;
+import com.esotericsoftware.kryonet.Listener;
+import com.esotericsoftware.kryonet.Server;
+
+import Server.Utils.LatencyStats;
+
+/**
+ * Pings every connection on a fixed interval and keeps each one's LatencyStats from the replies.
+ * Used by matchmaking to pair players with similar latency, by matches to size word queues, and by ServerMetrics.
+ */
+public class LatencyService extends Listener {
+
+	public static final long DEFAULT_INTERVAL = 1000;
+	
+	private Server server;
+	private ConcurrentHashMap<Integer, LatencyStats> stats;
+	private Timer timer;
+	
+	public LatencyService(Server server) {
+		this(server, DEFAULT_INTERVAL);
+	}
+	
+	/**
+	 * @param server
+	 * @param interval time between pings in ms
+	 */
+	public LatencyService(Server server, long interval) {
+		
+		this.server = server;
+		stats = new ConcurrentHashMap<Integer, LatencyStats>();
+		
+		timer = new Timer("latency-service", true);
+		timer.scheduleAtFixedRate(new TimerTask(){
+			
+			@Override
+			public void run() {
+				pingAll();
+			}
+			
+		}, interval, interval);
+	}
+	
+	private void pingAll(){
+		
+		for(Connection connection : server.getConnections()){
+			
+			if(connection.isConnected()){
+				getOrCreate(connection.getID()).pingSent();
+				connection.updateReturnTripTime();
+			}
+			
+		}
+		
+	}
+	
+	@Override
+	public void connected(Connection connection) {
+		getOrCreate(connection.getID());
+	}
+	
+	@Override
+	public void received(Connection connection, Object object) {
+		
+		if(object instanceof Ping && ((Ping)object).isReply){
+			getOrCreate(connection.getID()).pingReplied(connection.getReturnTripTime());
+		}
+		
+	}
+	
+	@Override
+	public void disconnected(Connection connection) {
+		stats.remove(connection.getID());
+	}
+	
+	private LatencyStats getOrCreate(int connectionID){
+		
+		LatencyStats s = stats.get(connectionID);
+		
+		if(s == null){
+			LatencyStats created = new LatencyStats();
+			s = stats.putIfAbsent(connectionID, created);
+			if(s == null){
+				s = created;
+			}
+		}
+		
+		return s;
+	}
+	
+	/**
+	 * @param connectionID
+	 * @return the connection's stats, null if it is not connected
+	 */
+	public LatencyStats getStats(int connectionID){
+		return stats.get(connectionID);
+	}
+	
+	/**
+	 * The median round trip time of the connection
+	 * @param connectionID
+	 * @return in ms, 0 if unknown
+	 */
+	public int getRoundTrip(int connectionID){
+		LatencyStats s = stats.get(connectionID);
+		return s == null ? 0 : s.getMedian();
+	}
+	
+	/**
+	 * @return the stats of every connected connection
+	 */
+	public Iterable<LatencyStats> getAllStats(){
+		return stats.values();
+	}
+	
+	public void dispose(){
+		timer.cancel();
+	}
+	
+}
@@ -0,0 +1,56 @@
+package Server.Listeners;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+
+import Server.World.ServerGameWorld;
+
+/**
+ * Single server listener that delivers in-match messages only to the world owning the connection,
+ * so dispatch cost does not grow with the number of running matches.
+ */
+public class MatchRouter extends Listener {
+
+	private ConcurrentHashMap<Integer, ServerGameWorld> matches;
+
+	public MatchRouter() {
+		matches = new ConcurrentHashMap<Integer, ServerGameWorld>();
+	}
+
+	public void register(int connectionID, ServerGameWorld world){
+		matches.put(connectionID, world);
+	}
+
+	public void unregister(int connectionID, ServerGameWorld world){
+		matches.remove(connectionID, world);
+	}
+
+	public ServerGameWorld getMatch(int connectionID){
+		return matches.get(connectionID);
+	}
+
+	@Override
+	public void received(Connection connection, Object object) {
+
+		ServerGameWorld world = matches.get(connection.getID());
+
+		if(world != null){
+			world.received(connection, object);
+		}
+
+	}
+
+	@Override
+	public void disconnected(Connection connection) {
+
+		ServerGameWorld world = matches.get(connection.getID());
+
+		if(world != null){
+			world.disconnected(connection.getID());
+		}
+
+	}
+
+}
@@ -1,12 +1,12 @@
 package Server.Listeners;
 
-import com.badlogic.gdx.Gdx;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.Listener;
 import com.esotericsoftware.kryonet.Server;
 
 import Client.Requests.MessageRequest;
 import Server.Responses.MessageResponse;
+import Server.Utils.ServerLog;
 
 public class MessageRequestListener extends Listener {
 	
@@ -21,7 +21,7 @@ public class MessageRequestListener extends Listener {
 		
 		if(object instanceof MessageRequest){
 			MessageRequest r = (MessageRequest)object;
-			Gdx.app.log("Server - Message", r.name + ": " + r.message);
+			ServerLog.log("Server - Message", r.name + ": " + r.message);
 			server.sendToAllExceptTCP(connection.getID(), new MessageResponse(r.name, r.message));
 		}
 		
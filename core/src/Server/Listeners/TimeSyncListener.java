@@ -0,0 +1,24 @@
+package Server.Listeners;
+
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+
+import Client.Requests.TimeSyncRequest;
+import Server.Responses.TimeSyncResponse;
+
+/**
+ * Answers clock sync requests with the server's time so clients can estimate their offset from it
+ */
+public class TimeSyncListener extends Listener {
+
+	@Override
+	public void received(Connection connection, Object object) {
+		
+		if(object instanceof TimeSyncRequest){
+			TimeSyncRequest r = (TimeSyncRequest)object;
+			connection.sendTCP(new TimeSyncResponse(r.clientTime, System.currentTimeMillis()));
+		}
+		
+	}
+	
+}
@@ -0,0 +1,20 @@
+package Server.Responses;
+
+/**
+ * Every message sent to a connection during one match tick, written as a single frame.
+ * The client handles the first count messages in the order they were queued, the rest of the array is unused
+ * and is not serialized, see BatchSerializer
+ */
+public class BatchResponse {
+
+	public Object[] messages;
+	public int count;
+	
+	public BatchResponse(Object[] messages, int count) {
+		this.messages = messages;
+		this.count = count;
+	}
+	
+	public BatchResponse() {}
+	
+}
@@ -0,0 +1,38 @@
+package Server.Responses;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Writes the count followed by only the first count messages, the server's batches reuse an array
+ * that is larger than the tick's messages. Read batches hold exactly count messages
+ */
+public class BatchSerializer extends Serializer<BatchResponse> {
+
+	@Override
+	public void write(Kryo kryo, Output output, BatchResponse r) {
+		
+		output.writeVarInt(r.count, true);
+		
+		for(int i = 0; i < r.count; ++i){
+			kryo.writeClassAndObject(output, r.messages[i]);
+		}
+		
+	}
+
+	@Override
+	public BatchResponse read(Kryo kryo, Input input, Class<BatchResponse> type) {
+		
+		int count = input.readVarInt(true);
+		Object[] messages = new Object[count];
+		
+		for(int i = 0; i < count; ++i){
+			messages[i] = kryo.readClassAndObject(input);
+		}
+		
+		return new BatchResponse(messages, count);
+	}
+	
+}
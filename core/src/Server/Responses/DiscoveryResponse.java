@@ -0,0 +1,18 @@
+package Server.Responses;
+
+/**
+ * A server's answer to a LAN discovery broadcast, carries its ports and current load
+ */
+public class DiscoveryResponse {
+
+	public int tcpPort;
+	public int udpPort;
+	
+	public int players;
+	public int matches;
+	public long tickLag; //How late the server's match shards last ticked in ms
+	public long timeStep;
+	
+	public DiscoveryResponse() {}
+	
+}
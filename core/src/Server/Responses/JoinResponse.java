@@ -5,6 +5,10 @@ public class JoinResponse {
 	public String name;
 	public boolean success;
 	
+	//Only set on the response naming the joining player
+	public long resumeToken;
+	public long resumeGrace;
+	
 	public JoinResponse() {}
 	
 	public JoinResponse(String name, boolean success) {
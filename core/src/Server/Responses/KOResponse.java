@@ -1,15 +0,0 @@
-package Server.Responses;
-
-public class KOResponse {
-	
-	public String name;
-	public boolean enable;
-	
-	public KOResponse(String name, boolean enable) {
-		this.name = name;
-		this.enable = enable;
-	}
-	
-	public KOResponse() {}
-
-}
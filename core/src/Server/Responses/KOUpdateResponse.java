@@ -1,15 +0,0 @@
-package Server.Responses;
-
-public class KOUpdateResponse {
-
-	public int time;
-	
-	public KOUpdateResponse(int time) {
-		this.time = time;
-	}
-	
-	public KOUpdateResponse() {
-		// TODO Auto-generated constructor stub
-	}
-	
-}
@@ -0,0 +1,15 @@
+package Server.Responses;
+
+public class PauseResponse {
+
+	public boolean paused;
+	public String name; //The player the match is waiting for, null once nobody is away
+	
+	public PauseResponse(boolean paused, String name) {
+		this.paused = paused;
+		this.name = name;
+	}
+	
+	public PauseResponse() {}
+	
+}
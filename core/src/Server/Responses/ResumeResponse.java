@@ -0,0 +1,15 @@
+package Server.Responses;
+
+public class ResumeResponse {
+
+	public boolean success;
+	public boolean inMatch; //The player's match is still running, a full snapshot follows
+	
+	public ResumeResponse(boolean success, boolean inMatch) {
+		this.success = success;
+		this.inMatch = inMatch;
+	}
+	
+	public ResumeResponse() {}
+	
+}
@@ -0,0 +1,47 @@
+package Server.Responses;
+
+import Client.Utils.MoveType;
+
+/**
+ * Everything that changed in a match during one tick, sent at the end of the tick.
+ * Only the fields flagged in the mask hold meaningful values. Loss tolerant fields are split off into
+ * their own snapshot sent over UDP, those carry a sequence number so clients can drop stale ones
+ */
+public class SnapshotResponse {
+
+	public static final int HEALTH = 1;
+	public static final int ENERGY = 1 << 1;
+	public static final int ANIMATION = 1 << 2;
+	public static final int KNOCKOUT = 1 << 3;
+	public static final int KO_TIME = 1 << 4;
+	public static final int ACK = 1 << 5;
+	
+	//Fields where only the latest value matters
+	public static final int UNRELIABLE = ANIMATION | KO_TIME;
+	
+	public int mask;
+	public int sequence; //0 for reliable snapshots
+	
+	//The receiving player's own stats
+	public int health;
+	public int energy;
+	
+	//Animation cues indexed by slot, null where a player did not animate
+	public MoveType[] animations;
+	
+	public int koSlot;
+	public boolean koEnable;
+	public int koTime;
+	
+	//Last command sequence the server applied for the receiving player, and the moves it dropped since the last snapshot
+	//with bit n set if the sequence n below the ack was rejected
+	public int ack;
+	public int rejected;
+	
+	public SnapshotResponse() {}
+	
+	public boolean has(int field){
+		return (mask & field) != 0;
+	}
+	
+}
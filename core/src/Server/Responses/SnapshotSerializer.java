@@ -0,0 +1,102 @@
+package Server.Responses;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import Client.Utils.MoveType;
+
+/**
+ * Writes the mask followed by only the fields it flags, so a snapshot that only acknowledges a command is a few bytes.
+ * Animations are written as one varint per slot, the move's ordinal + 1 or 0 where the player did not animate
+ */
+public class SnapshotSerializer extends Serializer<SnapshotResponse> {
+
+	private static final MoveType[] MOVES = MoveType.values();
+	
+	@Override
+	public void write(Kryo kryo, Output output, SnapshotResponse r) {
+		
+		output.writeVarInt(r.mask, true);
+		output.writeVarInt(r.sequence, true);
+		
+		if(r.has(SnapshotResponse.HEALTH)){
+			output.writeVarInt(r.health, true);
+		}
+		
+		if(r.has(SnapshotResponse.ENERGY)){
+			output.writeVarInt(r.energy, true);
+		}
+		
+		if(r.has(SnapshotResponse.ANIMATION)){
+			
+			output.writeVarInt(r.animations.length, true);
+			
+			for(MoveType move : r.animations){
+				output.writeVarInt(move == null ? 0 : move.ordinal() + 1, true);
+			}
+			
+		}
+		
+		if(r.has(SnapshotResponse.KNOCKOUT)){
+			output.writeVarInt(r.koSlot, true);
+			output.writeBoolean(r.koEnable);
+		}
+		
+		if(r.has(SnapshotResponse.KO_TIME)){
+			output.writeVarInt(r.koTime, true);
+		}
+		
+		if(r.has(SnapshotResponse.ACK)){
+			output.writeVarInt(r.ack, true);
+			output.writeVarInt(r.rejected, true);
+		}
+		
+	}
+
+	@Override
+	public SnapshotResponse read(Kryo kryo, Input input, Class<SnapshotResponse> type) {
+		
+		SnapshotResponse r = new SnapshotResponse();
+		
+		r.mask = input.readVarInt(true);
+		r.sequence = input.readVarInt(true);
+		
+		if(r.has(SnapshotResponse.HEALTH)){
+			r.health = input.readVarInt(true);
+		}
+		
+		if(r.has(SnapshotResponse.ENERGY)){
+			r.energy = input.readVarInt(true);
+		}
+		
+		if(r.has(SnapshotResponse.ANIMATION)){
+			
+			r.animations = new MoveType[input.readVarInt(true)];
+			
+			for(int i = 0; i < r.animations.length; ++i){
+				int move = input.readVarInt(true);
+				r.animations[i] = move == 0 ? null : MOVES[move - 1];
+			}
+			
+		}
+		
+		if(r.has(SnapshotResponse.KNOCKOUT)){
+			r.koSlot = input.readVarInt(true);
+			r.koEnable = input.readBoolean();
+		}
+		
+		if(r.has(SnapshotResponse.KO_TIME)){
+			r.koTime = input.readVarInt(true);
+		}
+		
+		if(r.has(SnapshotResponse.ACK)){
+			r.ack = input.readVarInt(true);
+			r.rejected = input.readVarInt(true);
+		}
+		
+		return r;
+	}
+	
+}
@@ -3,9 +3,13 @@ package Server.Responses;
 public class StartResponse {
 
 	public String enemyName;
+	public int slot;
+	public int enemySlot;
 	
-	public StartResponse(String enemyName) {
+	public StartResponse(String enemyName, int slot, int enemySlot) {
 		this.enemyName = enemyName;
+		this.slot = slot;
+		this.enemySlot = enemySlot;
 	}
 	
 	public StartResponse() {
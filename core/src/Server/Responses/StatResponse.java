@@ -1,19 +0,0 @@
-package Server.Responses;
-
-public class StatResponse {
-
-	public int health;
-	public int energy;
-	
-	public StatResponse(int health, int energy) {
-		
-		this.health = health;
-		this.energy = energy;
-	}
-	
-	public StatResponse(){
-		
-	}
-	
-	
-}
@@ -0,0 +1,15 @@
+package Server.Responses;
+
+public class TimeSyncResponse {
+
+	public long clientTime; //Echoed from the request
+	public long serverTime;
+	
+	public TimeSyncResponse(long clientTime, long serverTime) {
+		this.clientTime = clientTime;
+		this.serverTime = serverTime;
+	}
+	
+	public TimeSyncResponse() {}
+	
+}
@@ -0,0 +1,20 @@
+package Server.Responses;
+
+/**
+ * Upcoming words for the receiving player. Clients type through the queue without waiting for the server,
+ * the server keeps topping it up with new words. A reset replaces the client's whole queue, the first word
+ * being the one the player has to type now
+ */
+public class WordQueueResponse {
+
+	public static final int MAX_WORDS = 8;
+	
+	public boolean reset;
+	public String[] words;
+	public int count;
+	
+	public WordQueueResponse() {
+		words = new String[MAX_WORDS];
+	}
+	
+}
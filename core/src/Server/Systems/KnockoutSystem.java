@@ -1,82 +1,82 @@
 package Server.Systems;
 
+import java.util.Random;
+
 import com.badlogic.ashley.core.ComponentMapper;
 import com.badlogic.ashley.core.Engine;
-import com.badlogic.ashley.core.Entity;
 import com.badlogic.ashley.core.EntitySystem;
-import com.badlogic.ashley.utils.ImmutableArray;
-import com.esotericsoftware.kryonet.Connection;
-import com.esotericsoftware.kryonet.Listener;
-import com.esotericsoftware.kryonet.Server;
 
 import Client.Requests.WordSubmissionRequest;
 import Server.Components.HealthComponent;
-import Server.Components.IdComponent;
 import Server.Enities.ServerPlayer;
-import Server.Responses.KOResponse;
-import Server.Responses.KOUpdateResponse;
 import Server.Responses.WordSubmissionResponse;
+import Server.Utils.OutboundBatcher;
+import Server.Utils.TickPool;
 import Server.Utils.WordUtil;
 
+/**
+ * Counts down a knocked out player while they type their way back up. A match keeps one and restarts it for every
+ * knockout, so knockouts do not allocate once the match is running
+ */
 public class KnockoutSystem extends EntitySystem {
 	
-	private ComponentMapper<IdComponent> im = ComponentMapper.getFor(IdComponent.class);
 	private ComponentMapper<HealthComponent> hm = ComponentMapper.getFor(HealthComponent.class);
 	
-	private ImmutableArray<Entity> players;
-	
-	private Server server;
+	private OutboundBatcher outbound;
+	private TickPool<WordSubmissionResponse> responses;
+	private final WordSubmissionResponse INCORRECT = new WordSubmissionResponse(false, null);
+	private ReplicationSystem replication;
 	private ServerPlayer player;
 	
 	private HealthComponent hc;
 	
 	private float timeElapsed;
-	private Listener koListener;
 	
 	private int wordsCorrect;
 	private boolean knockedOut = false;
 	
 	private String currentWord;
+	private Random random;
 	
-	public KnockoutSystem(Server server, ServerPlayer player) {
+	/**
+	 * @param outbound
+	 * @param replication
+	 * @param random draws the words the player has to type, seeded by the match
+	 */
+	public KnockoutSystem(OutboundBatcher outbound, ReplicationSystem replication, Random random) {
 		
-		this.player = player;
-		this.server = server;
+		this.outbound = outbound;
+		this.replication = replication;
+		this.random = random;
 		
+		responses = outbound.addPool(new TickPool<WordSubmissionResponse>(){
+			@Override
+			protected WordSubmissionResponse create() {
+				return new WordSubmissionResponse();
+			}
+		});
+	}
+	
+	/**
+	 * Starts the countdown of a knockout and sends the player their first word, called before the system is added to the engine
+	 * @param player the knocked out player
+	 */
+	public void start(ServerPlayer player){
+		
+		this.player = player;
 		hc = hm.get(player);
 		
 		timeElapsed = 0;
 		wordsCorrect = 0;
+		knockedOut = false;
 		
-		currentWord = WordUtil.getWord(hc.knockouts + 3);
-		server.sendToTCP(player.getID(), new WordSubmissionResponse(true, currentWord));
-		
-		koListener = new Listener(){
-			
-			@Override
-			public void received(Connection connection, Object object) {
-				
-				if(object instanceof WordSubmissionRequest){
-					WordSubmissionRequest r = (WordSubmissionRequest)object;
-					processWord(r, connection);
-				}
-				
-			}
-
-			
-			
-		};
-		server.addListener(koListener);
+		currentWord = WordUtil.getWord(hc.knockouts + 3, random);
+		sendWord(player.getID());
 	}
 	
 	@Override
 	public void addedToEngine(Engine engine) {
-		players = engine.getEntities();
-		
-		for(Entity entity : players){
-			IdComponent ic = im.get(entity);
-			server.sendToTCP(ic.id, new KOResponse(player.getName(), true));
-		}
+		replication.setKnockout(player.getSlot(), true);
 	}
 	
 	@Override
@@ -91,10 +91,7 @@ public class KnockoutSystem extends EntitySystem {
 				koTime = 10;
 			}
 			
-			for(Entity p : players){
-				IdComponent ic = im.get(p);
-				server.sendToTCP(ic.id, new KOUpdateResponse(koTime));
-			}
+			replication.setKOTime(koTime);
 			
 		}else{
 			timeElapsed = 10;
@@ -103,22 +100,32 @@ public class KnockoutSystem extends EntitySystem {
 		
 	}
 	
-	public void dispose(){
-		server.removeListener(koListener);
-	}
-	
-	private void processWord(WordSubmissionRequest r, Connection connection) {
+	public void processWord(int id, WordSubmissionRequest r) {
 		
-		if(currentWord.toLowerCase().equals(r.word.toLowerCase())){
+		if(currentWord.equalsIgnoreCase(r.word)){
 			++wordsCorrect;
-			currentWord = WordUtil.getWord(hc.knockouts + 3);
-			server.sendToTCP(connection.getID(), new WordSubmissionResponse(true, currentWord));
+			currentWord = WordUtil.getWord(hc.knockouts + 3, random);
+			sendWord(id);
 		}else{
-			server.sendToTCP(connection.getID(), new WordSubmissionResponse(false, null));
+			outbound.send(id, INCORRECT);
 		}
 		
 	}
 	
+	/**
+	 * Resends the knocked out player their current word
+	 */
+	public void resync(){
+		sendWord(player.getID());
+	}
+	
+	private void sendWord(int id){
+		WordSubmissionResponse response = responses.obtain();
+		response.success = true;
+		response.newWord = currentWord;
+		outbound.send(id, response);
+	}
+	
 	public boolean knockedOut(){
 		return knockedOut;
 	}
@@ -127,7 +134,7 @@ public class KnockoutSystem extends EntitySystem {
 		return wordsCorrect >= 10;
 	}
 
-	public Entity getPlayer() {
+	public ServerPlayer getPlayer() {
 		return player;
 	}
 	
@@ -1,198 +1,228 @@
 package Server.Systems;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
 import com.badlogic.ashley.core.ComponentMapper;
-import com.badlogic.ashley.core.Engine;
-import com.badlogic.ashley.core.Entity;
 import com.badlogic.ashley.core.EntitySystem;
-import com.badlogic.ashley.core.Family;
-import com.badlogic.ashley.utils.ImmutableArray;
-import com.esotericsoftware.kryonet.Connection;
-import com.esotericsoftware.kryonet.Listener;
-import com.esotericsoftware.kryonet.Server;
 
 import Client.Requests.MoveRequest;
 import Client.Utils.MoveType;
 import Server.Components.EnergyComponent;
 import Server.Components.HealthComponent;
-import Server.Components.IdComponent;
 import Server.Components.StateComponent;
 import Server.Enities.ServerPlayer;
-import Server.Responses.AnimationResponse;
-import Server.Responses.StatResponse;
+import Server.Listeners.LatencyService;
+import Server.Utils.LatencyStats;
 import Server.Utils.MoveInformation;
 import Server.Utils.PlayerState;
+import Server.Utils.StateTimerWheel;
 
 public class MoveSystem extends EntitySystem{
 
-	private Server server;
+	private ServerPlayer[] players;
 	
-	private ImmutableArray<Entity> entities;
-	
-	private ComponentMapper<IdComponent> im = ComponentMapper.getFor(IdComponent.class);
 	private ComponentMapper<StateComponent> sm = ComponentMapper.getFor(StateComponent.class);
 	private ComponentMapper<HealthComponent> hm = ComponentMapper.getFor(HealthComponent.class);
 	private ComponentMapper<EnergyComponent> em = ComponentMapper.getFor(EnergyComponent.class);
 	
-	private LinkedList<MoveRequest> moves;
+	//Pending moves for this tick, indexed by arrival
+	private int[] moveSlots;
+	private MoveType[] moveTypes;
+	private int[] moveSequences;
+	private long[] moveTimes;
+	
+	//How far before its arrival a move may claim to have been made in ms. Only orders moves applied in the same tick,
+	//a move is never held back or applied ahead of moves already resolved in an earlier tick
+	private final long COMPENSATION_WINDOW = 100;
+	private int moveCount;
+	
+	private StateTimerWheel stateTimers;
+	private ReplicationSystem replication;
 	
-	private Listener moveListener;
+	//Each slot's round trip stats, looked up again only when the slot's connection changes
+	private LatencyService latency;
+	private LatencyStats[] stats;
+	private int[] statsIDs;
 	
-	public MoveSystem(Server server) {
+	/**
+	 * @param players the match's players indexed by slot
+	 * @param stateTimers
+	 * @param replication told about moves that could not be paid for
+	 * @param latency narrows each player's compensation window to their measured round trips
+	 */
+	public MoveSystem(ServerPlayer[] players, StateTimerWheel stateTimers, ReplicationSystem replication, LatencyService latency) {
 		
-		this.server = server;
+		this.players = players;
+		this.stateTimers = stateTimers;
+		this.replication = replication;
+		this.latency = latency;
 		
-		moves = new LinkedList<MoveRequest>();
+		stats = new LatencyStats[players.length];
+		statsIDs = new int[players.length];
+		Arrays.fill(statsIDs, -1);
 		
-		//Network Listeners
-		moveListener = new Listener(){
-			
-			@Override
-			public void received(Connection connection, Object object) {
-				
-				if(object instanceof MoveRequest){
-					MoveRequest r = (MoveRequest)object;
-					addMove(r);
-				}
-				
-			}
-			
-		};
-		server.addListener(moveListener);
+		moveSlots = new int[8];
+		moveTypes = new MoveType[8];
+		moveSequences = new int[8];
+		moveTimes = new long[8];
+		moveCount = 0;
 	}
 	
-	@SuppressWarnings("unchecked")
-	@Override
-	public void addedToEngine(Engine engine) {
-		entities = engine.getEntitiesFor(Family.all(EnergyComponent.class, HealthComponent.class).get());
+	/**
+	 * Narrows the move's timestamp to the player's measured latency. A move can not have been made longer before it
+	 * arrived than the player's slower round trips take, however far back the client's clock claims.
+	 * Players without measurements yet get the full compensation window
+	 * @param slot
+	 * @param r
+	 */
+	public void compensate(int slot, MoveRequest r){
+		
+		if(r.time > 0){
+			r.time = Math.max(r.received - getWindow(slot), r.time);
+		}
+		
 	}
 	
-	private void addMove(MoveRequest r){
-		moves.add(r);
+	private long getWindow(int slot){
+		
+		int id = players[slot].getID();
+		
+		if(statsIDs[slot] != id){
+			stats[slot] = latency.getStats(id);
+			statsIDs[slot] = id;
+		}
+		
+		if(stats[slot] == null || stats[slot].getSampleCount() == 0){
+			return COMPENSATION_WINDOW;
+		}
+		
+		return Math.min(COMPENSATION_WINDOW, stats[slot].getPercentile90());
 	}
 	
-	@Override
-	public void update(float deltaTime) {
+	/**
+	 * Queues the move for this tick. The client's timestamp is trusted only within the compensation window
+	 * before the move's arrival, narrowed further by compensate, moves from clients without a synced clock count as made on arrival.
+	 * The timestamp only orders the move among the others applied this tick, see update
+	 * @param slot
+	 * @param r
+	 */
+	public void addMove(int slot, MoveRequest r){
 		
-		LinkedList<MoveRequest> moves = new LinkedList<MoveRequest>();
-		while(!this.moves.isEmpty()){
-			moves.add(this.moves.pop());
+		if(moveCount == moveSlots.length){
+			moveSlots = Arrays.copyOf(moveSlots, moveCount * 2);
+			moveTypes = Arrays.copyOf(moveTypes, moveCount * 2);
+			moveSequences = Arrays.copyOf(moveSequences, moveCount * 2);
+			moveTimes = Arrays.copyOf(moveTimes, moveCount * 2);
 		}
 		
-		//Checks if all moves can be performed
-		for(Entity entity : entities){
-			
-			for(int i = 0; i < moves.size(); ++i){
-				
-				IdComponent ic = im.get(entity);
-				MoveRequest r = moves.get(i);
-				
-				//Check if move can be performed
-				if(ic.name.equals(r.name)){
-					
-					//Energy handling
-					EnergyComponent ec = em.get(entity);
-					if(ec.energy >= getEnergyCost(r.move)){
-						ec.energy -= getEnergyCost(r.move);
-					}else{
-						moves.remove(i);
-						--i;
-					}
-					
-				}
-			}
-			
+		long time = r.received;
+		if(r.time > 0){
+			time = Math.max(r.received - COMPENSATION_WINDOW, Math.min(r.time, r.received));
 		}
 		
-		for(int i = 0; i < entities.size(); ++i){
+		//Keeps the moves ordered by when they were made, ties stay in arrival order
+		int i = moveCount;
+		while(i > 0 && moveTimes[i - 1] > time){
+			moveSlots[i] = moveSlots[i - 1];
+			moveTypes[i] = moveTypes[i - 1];
+			moveSequences[i] = moveSequences[i - 1];
+			moveTimes[i] = moveTimes[i - 1];
+			--i;
+		}
 		
-			Entity entity = entities.get(i);
+		moveSlots[i] = slot;
+		moveTypes[i] = r.move;
+		moveSequences[i] = r.sequence;
+		moveTimes[i] = time;
+		++moveCount;
+	}
+	
+	@Override
+	public void update(float deltaTime) {
+		
+		//Moves applied in the same tick are resolved in the order they were made rather than the order they arrived,
+		//so a player's latency does not decide simultaneous exchanges such as a BLOCK against a HOOK that land in one tick.
+		//Moves are applied on the tick they arrive, so a move that arrives a tick after the opponent's earlier made move
+		//still resolves after it. Holding every move back for the window would fix that at the cost of its latency
+		
+		//Checks if all moves can be performed, moves that can't be paid for are dropped
+		int valid = 0;
+		for(int i = 0; i < moveCount; ++i){
 			
-			for(MoveRequest r : moves){
-				IdComponent ic = im.get(entity);
-				
-				//Perform moves
-				if(ic.name.equals(r.name)){
-					preformMove((ServerPlayer)entity, r);
-				}
-				
+			EnergyComponent ec = em.get(players[moveSlots[i]]);
+			int cost = MoveInformation.getEnergyCost(moveTypes[i]);
+			
+			if(ec.energy >= cost){
+				ec.energy -= cost;
+				ec.dirty = true;
+				moveSlots[valid] = moveSlots[i];
+				moveTypes[valid] = moveTypes[i];
+				++valid;
+			}else{
+				replication.setRejected(moveSlots[i], moveSequences[i]);
 			}
 			
 		}
 		
-		moves.clear();
+		//Perform moves
+		for(int i = 0; i < valid; ++i){
+			preformMove(moveSlots[i], moveTypes[i]);
+			moveTypes[i] = null;
+		}
+		
+		moveCount = 0;
 		
 	}
 
-	private void preformMove(ServerPlayer player, MoveRequest r) {
+	private void preformMove(int slot, MoveType move) {
+		
+		ServerPlayer player = players[slot];
 		
 		//Checks for blocking
-		if(r.move == MoveType.BLOCK){
+		if(move == MoveType.BLOCK){
 			
-			StateComponent sc = sm.get(player);
+			setAnimation(player, move);
 			
-			for(Entity entity : entities){
-				if(!entity.equals(player)){
-					IdComponent ic = im.get(player);
-					sendAnimation(player, ic.id, r);
-				}
-			}
-			
-			sc.state =  PlayerState.BLOCKING;
-			player.setStateTimer();
+			player.setStateTimer(stateTimers, PlayerState.BLOCKING, MoveInformation.BLOCK_DURATION);
 			
 		}else{
 			
 			//Check for moves
-			for(int i = 0; i < entities.size(); ++i){
-				
-				Entity entity = entities.get(i);
-				
-				IdComponent ic = im.get(entity);
+			for(int i = 0; i < players.length; ++i){
 				
 				//If the player is not the player performing the move
-				if(!ic.name.equals(r.name)){
+				if(i != slot){
 					
-					EnergyComponent ec = em.get(entity);
-					StateComponent sc = sm.get(entity);
+					ServerPlayer opponent = players[i];
+					
+					EnergyComponent ec = em.get(opponent);
+					StateComponent sc = sm.get(opponent);
 					
 					//Gets the adjusted damage
-					int damage = getDamage((ServerPlayer)entity, player, r.move);
+					int damage = getDamage(opponent, player, move);
 					
 					//Jab Energy Mitigation
-					if(r.move == MoveType.JAB && ec.energy > ec.MAX_ENERGY * .5f){
-						
-						//Gdx.app.log("Move System", ic.name + ": Energy -> ( " + ec.energy + ", " + (ec.energy - damage) + ")");
+					if(move == MoveType.JAB && ec.energy > EnergyComponent.MAX_ENERGY * .5f){
 						
 						ec.energy -= damage * 1.5f;
 						if(ec.energy < 0 ){
 							ec.energy = 0;
 						}
-						
-						sendStats(player);
-						sendStats(entity);
+						ec.dirty = true;
 						
 					}else{
 						
 						//Health Deduction
-						HealthComponent hc = hm.get(entity);
-						//Gdx.app.log("Move System", ic.name + ": Health -> ( " + hc.health + ", " + (hc.health - damage) + ")");
+						HealthComponent hc = hm.get(opponent);
 						hc.health -= damage;
+						hc.dirty = true;
 						
 						if(hc.health < 0){
 							hc.health = 0;
 							sc.state =  PlayerState.KNOCKED_OUT;
 						}
 						
-						
-						//Attacker update
-						sendStats(player);
-						sendAnimation(player, ic.id, r);
-						
-						//Defender update
-						sc = sm.get(player);
-						sendStats(entity);
+						setAnimation(player, move);
 					}
 				}
 			}
@@ -200,23 +230,10 @@ public class MoveSystem extends EntitySystem{
 		
 	}
 	
-	private void sendAnimation(Entity player, int enemyID, MoveRequest r) {
-		//Send to the attacker
-		IdComponent ic = im.get(player);
-		server.sendToTCP(ic.id, new AnimationResponse(ic.name, r.move));
-		server.sendToTCP(enemyID, new AnimationResponse(ic.name, r.move));
-	}
-
-	private void sendStats(Entity player){
-		
-		HealthComponent hc = hm.get(player);
-		EnergyComponent ec = em.get(player);
-		IdComponent ic = im.get(player);
-		
-		//Gdx.app.log("MoveSystem", "Sending Stats");
-		
-		server.sendToTCP(ic.id, new StatResponse(hc.health, ec.energy));
-		
+	private void setAnimation(ServerPlayer player, MoveType move) {
+		StateComponent sc = sm.get(player);
+		sc.animation = move;
+		sc.dirty = true;
 	}
 	
 	private int getDamage(ServerPlayer opponent, ServerPlayer player, MoveType move){
@@ -261,27 +278,4 @@ public class MoveSystem extends EntitySystem{
 		
 	}
 	
-	private int getEnergyCost(MoveType move) {
-		
-		if(move == MoveType.JAB){
-			return MoveInformation.JAB_COST;
-		}else if(move == MoveType.CROSS){
-			return MoveInformation.CROSS_COST;
-		}else if(move == MoveType.UPPERCUT){
-			return MoveInformation.UPPERCUT_COST;
-		}else if(move == MoveType.HOOK){
-			return MoveInformation.HOOK_COST;
-		}else if(move == MoveType.BLOCK){
-			return MoveInformation.BLOCK_COST;
-		}else if(move == MoveType.COUNTER){
-			return MoveInformation.COUNTER_COST;
-		}
-		
-		return MoveInformation.MAX_ENERGY + 1; 
-	}
-	
-	public void dispose(){
-		server.removeListener(moveListener);
-	}
-	
 }
@@ -0,0 +1,222 @@
+package Server.Systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+
+import Client.Utils.MoveType;
+import Server.Components.EnergyComponent;
+import Server.Components.HealthComponent;
+import Server.Components.StateComponent;
+import Server.Enities.ServerPlayer;
+import Server.Responses.SnapshotResponse;
+import Server.Utils.OutboundBatcher;
+
+/**
+ * Collects the components the other systems marked dirty during a tick and sends each player a single
+ * SnapshotResponse holding only what changed. Runs after every other system, players that have nothing
+ * new are sent nothing.
+ */
+public class ReplicationSystem {
+
+	private OutboundBatcher outbound;
+	private ServerPlayer[] players;
+	
+	private ComponentMapper<HealthComponent> hm = ComponentMapper.getFor(HealthComponent.class);
+	private ComponentMapper<EnergyComponent> em = ComponentMapper.getFor(EnergyComponent.class);
+	private ComponentMapper<StateComponent> sm = ComponentMapper.getFor(StateComponent.class);
+	
+	private int sharedMask;
+	private int sequence;
+	private int koSlot;
+	private boolean koEnable;
+	private int koTime;
+	
+	//Reused every tick, the previous tick's snapshots have been sent by the time they are refilled
+	private SnapshotResponse[] reliableSnapshots;
+	private SnapshotResponse[] unreliableSnapshots;
+	private MoveType[] animations;
+	
+	//Command acknowledgements indexed by slot
+	private int[] acks;
+	private int[] rejected; //Bit n is set if the sequence n below the ack was rejected
+	private boolean[] acked;
+	
+	/**
+	 * @param outbound
+	 * @param players the match's players indexed by slot
+	 */
+	public ReplicationSystem(OutboundBatcher outbound, ServerPlayer[] players) {
+		this.outbound = outbound;
+		this.players = players;
+		
+		sharedMask = 0;
+		sequence = 0;
+		koTime = -1;
+		
+		reliableSnapshots = new SnapshotResponse[players.length];
+		unreliableSnapshots = new SnapshotResponse[players.length];
+		animations = new MoveType[players.length];
+		acks = new int[players.length];
+		rejected = new int[players.length];
+		acked = new boolean[players.length];
+		
+		for(int i = 0; i < players.length; ++i){
+			reliableSnapshots[i] = new SnapshotResponse();
+			unreliableSnapshots[i] = new SnapshotResponse();
+		}
+	}
+	
+	/**
+	 * Starts or ends the knockout of the player in the slot
+	 * @param slot
+	 * @param enable
+	 */
+	public void setKnockout(int slot, boolean enable){
+		koSlot = slot;
+		koEnable = enable;
+		koTime = -1;
+		sharedMask |= SnapshotResponse.KNOCKOUT;
+	}
+	
+	/**
+	 * Sets the knockout countdown, only replicated when the displayed second changes
+	 * @param time
+	 */
+	public void setKOTime(int time){
+		
+		if(time != koTime){
+			koTime = time;
+			sharedMask |= SnapshotResponse.KO_TIME;
+		}
+		
+	}
+	
+	/**
+	 * Acknowledges a command the player sent
+	 * @param slot
+	 * @param sequence
+	 */
+	public void setAck(int slot, int sequence){
+		
+		//Keeps the rejected sequences relative to the new ack
+		int advance = sequence - acks[slot];
+		if(advance > 0){
+			rejected[slot] = advance < Integer.SIZE ? rejected[slot] << advance : 0;
+		}
+		
+		acks[slot] = sequence;
+		acked[slot] = true;
+	}
+	
+	/**
+	 * Tells the player their move was dropped so they can undo its prediction. Every move rejected during the tick is sent
+	 * @param slot
+	 * @param sequence an acknowledged sequence, moves more than 31 commands behind the ack are not reported
+	 */
+	public void setRejected(int slot, int sequence){
+		
+		int offset = acks[slot] - sequence;
+		if(offset >= 0 && offset < Integer.SIZE){
+			rejected[slot] |= 1 << offset;
+		}
+		
+		acked[slot] = true;
+	}
+	
+	/**
+	 * Resends the player's full state with the next flush, e.g. after they reconnected
+	 * @param slot
+	 */
+	public void resync(int slot){
+		hm.get(players[slot]).dirty = true;
+		em.get(players[slot]).dirty = true;
+	}
+	
+	/**
+	 * Sends the tick's snapshot to every player and clears all dirty flags
+	 */
+	public void flush(){
+		
+		boolean animated = false;
+		
+		for(int i = 0; i < players.length; ++i){
+			
+			StateComponent sc = sm.get(players[i]);
+			animations[i] = null;
+			
+			if(sc.dirty){
+				animated = true;
+				animations[i] = sc.animation;
+				sc.animation = null;
+				sc.dirty = false;
+			}
+			
+		}
+		
+		int shared = sharedMask;
+		if(animated){
+			shared |= SnapshotResponse.ANIMATION;
+		}
+		
+		if((shared & SnapshotResponse.UNRELIABLE) != 0){
+			++sequence;
+		}
+		
+		for(int i = 0; i < players.length; ++i){
+			
+			ServerPlayer player = players[i];
+			HealthComponent hc = hm.get(player);
+			EnergyComponent ec = em.get(player);
+			
+			int mask = shared;
+			
+			if(hc.dirty){
+				mask |= SnapshotResponse.HEALTH;
+				hc.dirty = false;
+			}
+			
+			if(ec.dirty){
+				mask |= SnapshotResponse.ENERGY;
+				ec.dirty = false;
+			}
+			
+			if(acked[i]){
+				mask |= SnapshotResponse.ACK;
+				acked[i] = false;
+			}
+			
+			int reliable = mask & ~SnapshotResponse.UNRELIABLE;
+			int unreliable = mask & SnapshotResponse.UNRELIABLE;
+			
+			if(reliable != 0){
+				reliableSnapshots[i].ack = acks[i];
+				reliableSnapshots[i].rejected = rejected[i];
+				rejected[i] = 0;
+				
+				outbound.send(player.getID(), fillSnapshot(reliableSnapshots[i], reliable, 0, hc, ec));
+			}
+			
+			if(unreliable != 0){
+				outbound.sendUnreliable(player.getID(), fillSnapshot(unreliableSnapshots[i], unreliable, sequence, hc, ec));
+			}
+			
+		}
+		
+		sharedMask = 0;
+		
+	}
+	
+	private SnapshotResponse fillSnapshot(SnapshotResponse snapshot, int mask, int sequence, HealthComponent hc, EnergyComponent ec){
+		
+		snapshot.mask = mask;
+		snapshot.sequence = sequence;
+		snapshot.health = hc.health;
+		snapshot.energy = ec.energy;
+		snapshot.animations = (mask & SnapshotResponse.ANIMATION) != 0 ? animations : null;
+		snapshot.koSlot = koSlot;
+		snapshot.koEnable = koEnable;
+		snapshot.koTime = koTime;
+		
+		return snapshot;
+	}
+	
+}
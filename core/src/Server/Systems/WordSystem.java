@@ -1,80 +1,89 @@
 package Server.Systems;
 
+import java.util.Arrays;
+
 import com.badlogic.ashley.core.ComponentMapper;
 import com.badlogic.ashley.core.Engine;
 import com.badlogic.ashley.core.Entity;
 import com.badlogic.ashley.core.EntitySystem;
 import com.badlogic.ashley.core.Family;
 import com.badlogic.ashley.utils.ImmutableArray;
-import com.esotericsoftware.kryonet.Connection;
-import com.esotericsoftware.kryonet.Listener;
-import com.esotericsoftware.kryonet.Server;
 
 import Client.Requests.WordSubmissionRequest;
 import Server.Components.EnergyComponent;
-import Server.Components.HealthComponent;
 import Server.Components.IdComponent;
 import Server.Components.WordComponent;
-import Server.Responses.StatResponse;
-import Server.Responses.WordSubmissionResponse;
+import Server.Listeners.LatencyService;
+import Server.Responses.WordQueueResponse;
+import Server.Utils.LatencyStats;
+import Server.Utils.OutboundBatcher;
+import Server.Utils.TickPool;
 import Server.Utils.WordUtil;
 
+/**
+ * Validates submitted words and keeps every player's word queue topped up. Clients advance through their
+ * queue locally, so the deeper the queue the longer a player can keep typing before hearing back from the server.
+ * The depth follows each player's round trip time as measured by the LatencyService.
+ */
 public class WordSystem extends EntitySystem{
 	
-	private Server server;
+	private final int MIN_QUEUE_DEPTH = 2; //The current word and the next one
+	private final int WORD_INTERVAL = 400; //Fastest expected time to type a word in ms, one extra word is queued per interval of round trip time
+	
+	private OutboundBatcher outbound;
+	private LatencyService latency;
+	private TickPool<WordQueueResponse> responses;
+	
+	//Each slot's stats, looked up again only when the slot's connection changes
+	private LatencyStats[] stats;
+	private int[] statsIDs;
 	
-	private ComponentMapper<HealthComponent> hm = ComponentMapper.getFor(HealthComponent.class);
 	private ComponentMapper<IdComponent> im = ComponentMapper.getFor(IdComponent.class);
 	private ComponentMapper<WordComponent> wm = ComponentMapper.getFor(WordComponent.class);
 	private ComponentMapper<EnergyComponent> em = ComponentMapper.getFor(EnergyComponent.class);
 	
 	private ImmutableArray<Entity> entities;
-	private Listener wordListener;
 	
-	public WordSystem(Server server) {
-		
-		this.server = server;
+	public WordSystem(OutboundBatcher outbound, LatencyService latency) {
+		this.outbound = outbound;
+		this.latency = latency;
 		
-		wordListener = new Listener(){
-			
+		responses = outbound.addPool(new TickPool<WordQueueResponse>(){
 			@Override
-			public void received(Connection connection, Object object) {
-				
-				if(object instanceof WordSubmissionRequest){
-					WordSubmissionRequest r = (WordSubmissionRequest)object;
-					processWord(connection.getID(), r);
-				}
-				
+			protected WordQueueResponse create() {
+				return new WordQueueResponse();
 			}
-			
-		};
-		server.addListener(wordListener);
+		});
 	}
 	
-	private void processWord(int id, WordSubmissionRequest r){
+	public void processWord(int id, WordSubmissionRequest r){
 		
-		for(Entity entity : entities){
+		for(int i = 0; i < entities.size(); ++i){
 			
+			Entity entity = entities.get(i);
 			IdComponent ic = im.get(entity);
 			WordComponent wc = wm.get(entity);
 			
 			if(ic.id == id){
 				
-				if(wc.word.toLowerCase().equals(r.word.toLowerCase())){
+				String word = wc.getWord();
+				
+				if(word.equalsIgnoreCase(r.word)){
 					
 					EnergyComponent ec = em.get(entity);
-					ec.energy += ec.ENERGY_PER_LETTER * wc.word.length();
+					ec.energy += EnergyComponent.ENERGY_PER_LETTER * word.length();
 					
-					if(ec.energy > 100){
-						ec.energy = 100;
+					if(ec.energy > EnergyComponent.MAX_ENERGY){
+						ec.energy = EnergyComponent.MAX_ENERGY;
 					}
+					ec.dirty = true;
 					
-					wc.word = WordUtil.getWord();
-					server.sendToTCP(id, new WordSubmissionResponse(true, wc.word));
-					sendStats(entity);
+					//The client has already moved on, the queue is topped up again on the next update
+					wc.pollFirst();
 					
 				}else{
-					server.sendToTCP(id, new WordSubmissionResponse(false, null));
+					//The client's queue no longer matches, sends it the server's
+					sendQueue(entity, true);
 				}
 
 			}
@@ -83,23 +92,108 @@ public class WordSystem extends EntitySystem{
 		
 	}
 	
-	@SuppressWarnings("unchecked")
+	/**
+	 * Replaces the player's queue on the client with the server's, e.g. after a knockout
+	 * @param entity
+	 */
+	public void resync(Entity entity){
+		topUp(entity);
+		sendQueue(entity, true);
+	}
+	
 	@Override
-	public void addedToEngine(Engine engine) {
-		entities = engine.getEntitiesFor(Family.all(WordComponent.class).get());
+	public void update(float deltaTime) {
+		
+		for(int i = 0; i < entities.size(); ++i){
+			
+			Entity entity = entities.get(i);
+			WordComponent wc = wm.get(entity);
+			
+			int added = topUp(entity);
+			
+			if(added > 0){
+				
+				WordQueueResponse response = responses.obtain();
+				response.reset = false;
+				response.count = 0;
+				
+				//Only the new words at the tail are sent
+				for(int w = wc.size - added; w < wc.size; ++w){
+					response.words[response.count++] = wc.get(w);
+				}
+				
+				outbound.send(im.get(entity).id, response);
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Adds words until the queue reaches the player's depth
+	 * @param entity
+	 * @return the number of words added
+	 */
+	private int topUp(Entity entity){
+		
+		WordComponent wc = wm.get(entity);
+		int depth = getQueueDepth(entity);
+		int added = 0;
+		
+		while(wc.size < depth && wc.addLast(WordUtil.getWord(wc.random))){
+			++added;
+		}
+		
+		return added;
+	}
+	
+	private int getQueueDepth(Entity entity){
+		
+		int depth = MIN_QUEUE_DEPTH;
+		LatencyStats stats = getStats(im.get(entity));
+		
+		//Sized for the slower round trips so jitter does not leave the player waiting
+		if(stats != null){
+			depth += stats.getPercentile90() / WORD_INTERVAL;
+		}
+		
+		return Math.min(depth, WordQueueResponse.MAX_WORDS);
 	}
 	
-	public void dispose() {
-		server.removeListener(wordListener);
+	private LatencyStats getStats(IdComponent ic){
+		
+		if(statsIDs[ic.slot] != ic.id){
+			stats[ic.slot] = latency.getStats(ic.id);
+			statsIDs[ic.slot] = ic.id;
+		}
+		
+		return stats[ic.slot];
 	}
 	
-	private void sendStats(Entity player){
+	private void sendQueue(Entity entity, boolean reset){
+		
+		WordComponent wc = wm.get(entity);
+		
+		WordQueueResponse response = responses.obtain();
+		response.reset = reset;
+		response.count = 0;
+		
+		for(int w = 0; w < wc.size && response.count < WordQueueResponse.MAX_WORDS; ++w){
+			response.words[response.count++] = wc.get(w);
+		}
 		
-		HealthComponent hc = hm.get(player);
-		EnergyComponent ec = em.get(player);
-		IdComponent ic = im.get(player);
+		outbound.send(im.get(entity).id, response);
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public void addedToEngine(Engine engine) {
+		entities = engine.getEntitiesFor(Family.all(WordComponent.class).get());
 		
-		server.sendToTCP(ic.id, new StatResponse(hc.health, ec.energy));
+		//The match's players are all in the engine before its systems
+		stats = new LatencyStats[entities.size()];
+		statsIDs = new int[entities.size()];
+		Arrays.fill(statsIDs, -1);
 	}
 	
 }
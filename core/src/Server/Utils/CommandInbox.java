@@ -0,0 +1,128 @@
+package Server.Utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi producer / single consumer ring buffer holding a match's inbound commands.
+ * Network threads only offer commands, the match tick drains them in arrival order.
+ */
+public class CommandInbox {
+
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private final int capacity;
+	private final int mask;
+
+	private final Object[] commands;
+	private final int[] senders;
+	private final AtomicLongArray sequences;
+
+	private final AtomicLong tail;
+	private long head;
+
+	public CommandInbox() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity rounded up to the next power of two
+	 */
+	public CommandInbox(int capacity) {
+
+		int size = 1;
+		while(size < capacity){
+			size <<= 1;
+		}
+
+		this.capacity = size;
+		mask = size - 1;
+
+		commands = new Object[size];
+		senders = new int[size];
+		sequences = new AtomicLongArray(size);
+
+		for(int i = 0; i < size; ++i){
+			sequences.set(i, i);
+		}
+
+		tail = new AtomicLong();
+		head = 0;
+	}
+
+	/**
+	 * Adds a command to the inbox, safe to call from any thread
+	 * @param sender connection id of the player that sent the command
+	 * @param command
+	 * @return false if the inbox is full and the command was dropped
+	 */
+	public boolean offer(int sender, Object command){
+
+		long position = tail.get();
+		int index;
+
+		while(true){
+
+			index = (int)(position & mask);
+			long difference = sequences.get(index) - position;
+
+			if(difference == 0){
+				if(tail.compareAndSet(position, position + 1)){
+					break;
+				}
+				position = tail.get();
+			}else if(difference < 0){
+				return false;
+			}else{
+				position = tail.get();
+			}
+
+		}
+
+		commands[index] = command;
+		senders[index] = sender;
+		sequences.lazySet(index, position + 1);
+
+		return true;
+	}
+
+	/**
+	 * Hands every published command to the handler in arrival order. Must only be called from the owning match's tick
+	 * @param handler
+	 * @return the number of commands handled
+	 */
+	public int drain(Handler handler){
+
+		int handled = 0;
+
+		while(handled < capacity){
+
+			int index = (int)(head & mask);
+
+			if(sequences.get(index) != head + 1){
+				break;
+			}
+
+			Object command = commands[index];
+			int sender = senders[index];
+
+			commands[index] = null;
+			sequences.lazySet(index, head + capacity);
+			++head;
+
+			handler.handle(sender, command);
+			++handled;
+		}
+
+		return handled;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public interface Handler {
+		void handle(int sender, Object command);
+	}
+
+}
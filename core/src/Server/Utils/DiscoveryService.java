@@ -0,0 +1,121 @@
+package Server.Utils;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.Server;
+
+import Client.Requests.DiscoveryRequest;
+import Client.Utils.GameUtils;
+import Server.Responses.DiscoveryResponse;
+import Server.World.MatchRegistry;
+
+/**
+ * Answers LAN discovery broadcasts with the server's ports and current load so clients can list every
+ * server on their network and pick the least busy one. Runs on its own port and thread beside the KryoNet server
+ */
+public class DiscoveryService implements Runnable {
+
+	public static final int DEFAULT_PORT = 54778;
+	
+	private Server server;
+	private MatchScheduler scheduler;
+	private MatchRegistry registry;
+	
+	private DatagramSocket socket;
+	private Kryo kryo;
+	private DiscoveryResponse response;
+	
+	private final int BUFFER_SIZE = 64;
+	
+	public DiscoveryService(Server server, MatchScheduler scheduler, MatchRegistry registry) {
+		
+		this.server = server;
+		this.scheduler = scheduler;
+		this.registry = registry;
+		
+		//Only used from the service's own thread
+		kryo = new Kryo();
+		GameUtils.serializeKryoObjects(kryo);
+		response = new DiscoveryResponse();
+	}
+	
+	/**
+	 * Starts answering discovery broadcasts
+	 * @param port the port clients broadcast to
+	 * @param tcp the game server's tcp port
+	 * @param udp the game server's udp port
+	 * @throws IOException if the port could not be bound
+	 */
+	public void bind(int port, int tcp, int udp) throws IOException {
+		
+		response.tcpPort = tcp;
+		response.udpPort = udp;
+		response.timeStep = scheduler.getTimeStep();
+		
+		socket = new DatagramSocket(port);
+		
+		Thread thread = new Thread(this, "server-discovery");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	@Override
+	public void run() {
+		
+		byte[] buffer = new byte[BUFFER_SIZE];
+		DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+		Output output = new Output(BUFFER_SIZE);
+		
+		while(true){
+			
+			try {
+				
+				packet.setData(buffer);
+				socket.receive(packet);
+				
+				Object object = kryo.readClassAndObject(new Input(buffer, 0, packet.getLength()));
+				
+				if(object instanceof DiscoveryRequest){
+					
+					response.players = server.getConnections().length;
+					response.matches = registry.getActiveCount();
+					response.tickLag = scheduler.getLastTickLag();
+					
+					output.clear();
+					kryo.writeClassAndObject(output, response);
+					
+					packet.setData(output.getBuffer(), 0, output.position());
+					socket.send(packet);
+				}
+				
+			} catch (KryoException e) {
+				//Not a discovery request, ignored
+			} catch (IOException e) {
+				
+				//Closed by dispose
+				if(socket.isClosed()){
+					return;
+				}
+				
+				ServerLog.log("DiscoveryService", "Failed to answer a discovery request");
+			}
+			
+		}
+		
+	}
+	
+	public void dispose(){
+		
+		if(socket != null){
+			socket.close();
+		}
+		
+	}
+	
+}
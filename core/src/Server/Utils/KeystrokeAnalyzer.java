@@ -0,0 +1,170 @@
+package Server.Utils;
+
+import Client.Utils.KeystrokeCodec;
+
+/**
+ * Follows one player's keystroke stream and keeps rolling typing statistics over their most recent keys.
+ * Memory is fixed per player: a ring of recent keys for WPM and accuracy, and running mean and variance of the
+ * time between keys. Also counts the keys typed since the last word so words that were never typed can be spotted.
+ */
+public class KeystrokeAnalyzer implements KeystrokeCodec.Handler {
+
+	private static final int WINDOW = 128; //Keys kept for rolling WPM and accuracy, must be a power of two
+	private static final int PAUSE = 2000; //Gaps longer than this in ms are pauses and not counted as typing rhythm
+	private static final int INHUMAN_INTERVAL = 15; //Keys closer together than this in ms are unlikely to be typed by hand
+	
+	private long[] times;
+	private boolean[] corrections;
+	private int head;
+	private int size;
+	private int windowCorrections;
+	
+	private long time;
+	private long keys;
+	private int keysSinceWord;
+	
+	//Running statistics of the time between keys
+	private long intervals;
+	private double intervalMean;
+	private double intervalM2;
+	private long inhumanIntervals;
+	
+	private int flaggedWords;
+	
+	public KeystrokeAnalyzer() {
+		times = new long[WINDOW];
+		corrections = new boolean[WINDOW];
+	}
+	
+	@Override
+	public void keystroke(int delta, char key) {
+		
+		//Submitting a word is not part of the typing
+		if(key == '\r' || key == '\n'){
+			return;
+		}
+		
+		time += delta;
+		++keys;
+		
+		if(keys > 1 && delta < PAUSE){
+			
+			++intervals;
+			double difference = delta - intervalMean;
+			intervalMean += difference / intervals;
+			intervalM2 += difference * (delta - intervalMean);
+			
+			if(delta < INHUMAN_INTERVAL){
+				++inhumanIntervals;
+			}
+		}
+		
+		boolean correction = key == KeystrokeCodec.BACKSPACE;
+		
+		if(correction){
+			keysSinceWord = Math.max(0, keysSinceWord - 1);
+		}else{
+			++keysSinceWord;
+		}
+		
+		//Evicts the oldest key once the window is full
+		int index = (head + size) & (WINDOW - 1);
+		if(size == WINDOW){
+			if(corrections[head]){
+				--windowCorrections;
+			}
+			head = (head + 1) & (WINDOW - 1);
+		}else{
+			++size;
+		}
+		
+		times[index] = time;
+		corrections[index] = correction;
+		if(correction){
+			++windowCorrections;
+		}
+		
+	}
+	
+	/**
+	 * Checks the player typed at least as many keys as the submitted word has letters
+	 * @param word
+	 * @return false if the word was not typed, e.g. pasted
+	 */
+	public boolean checkWord(String word){
+		
+		boolean typed = keysSinceWord >= word.length();
+		keysSinceWord = 0;
+		
+		if(!typed){
+			++flaggedWords;
+		}
+		
+		return typed;
+	}
+	
+	/**
+	 * Words per minute over the recent keys, counting five characters as a word
+	 * @return
+	 */
+	public float getWPM(){
+		
+		if(size < 2){
+			return 0;
+		}
+		
+		long span = times[(head + size - 1) & (WINDOW - 1)] - times[head];
+		
+		if(span <= 0){
+			return 0;
+		}
+		
+		int characters = size - windowCorrections;
+		
+		return (characters / 5f) / (span / 60000f);
+	}
+	
+	/**
+	 * Share of the recent keys that did not need correcting, each backspace undoes one key
+	 * @return between 0 and 1
+	 */
+	public float getAccuracy(){
+		
+		int characters = size - windowCorrections;
+		
+		if(characters <= 0){
+			return 1;
+		}
+		
+		return Math.max(0, (characters - windowCorrections) / (float)characters);
+	}
+	
+	public float getMeanInterval(){
+		return (float)intervalMean;
+	}
+	
+	public float getIntervalDeviation(){
+		return intervals < 2 ? 0 : (float)Math.sqrt(intervalM2 / (intervals - 1));
+	}
+	
+	/**
+	 * How many of the gaps between keys were too short to be typed by hand
+	 * @return
+	 */
+	public long getInhumanIntervals(){
+		return inhumanIntervals;
+	}
+	
+	public long getKeys(){
+		return keys;
+	}
+	
+	/**
+	 * Words submitted without being typed
+	 * @return
+	 */
+	public int getFlaggedWords(){
+		return flaggedWords;
+	}
+	
+}
@@ -0,0 +1,193 @@
+package Server.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Rolling round trip statistics of one connection over its most recent pings. Memory is fixed: the last WINDOW
+ * round trip times, the last WINDOW changes between consecutive round trips (jitter), and whether each of the last
+ * WINDOW pings was answered before the next one was sent. Written by the network thread, read by anything.
+ * The common percentiles are recomputed whenever a ping is answered, so the tick threads read them without locking or sorting.
+ */
+public class LatencyStats {
+
+	public static final int WINDOW = 64;
+	
+	private int[] samples;
+	private int[] jitters;
+	private int[] sorted;
+	private int sampleCount;
+	private int nextSample;
+	private int jitterCount;
+	private int nextJitter;
+	private int lastSample;
+	private float jitter;
+	
+	private boolean[] answered;
+	private int pingCount;
+	private int nextPing;
+	private int lost;
+	private boolean awaiting;
+	
+	//Cached for lock free readers, in ms
+	private volatile int count;
+	private volatile int median;
+	private volatile int percentile90;
+	private volatile int percentile99;
+	private volatile int jitterMedian;
+	private volatile int jitterPercentile90;
+	private volatile int jitterPercentile99;
+	
+	public LatencyStats() {
+		
+		samples = new int[WINDOW];
+		jitters = new int[WINDOW];
+		sorted = new int[WINDOW];
+		answered = new boolean[WINDOW];
+		
+		lastSample = -1;
+	}
+	
+	/**
+	 * A ping has been sent, the previous one is counted as lost if it was never answered
+	 */
+	public synchronized void pingSent(){
+		
+		if(awaiting){
+			recordPing(false);
+		}
+		
+		awaiting = true;
+	}
+	
+	/**
+	 * @param rtt the round trip time of the answered ping in ms
+	 */
+	public synchronized void pingReplied(int rtt){
+		
+		if(!awaiting){
+			return;
+		}
+		
+		awaiting = false;
+		recordPing(true);
+		
+		samples[nextSample] = rtt;
+		nextSample = (nextSample + 1) % WINDOW;
+		sampleCount = Math.min(sampleCount + 1, WINDOW);
+		
+		//Change between consecutive round trips, smoothed as in RFC 3550 and kept for percentiles
+		if(lastSample >= 0){
+			
+			int change = Math.abs(rtt - lastSample);
+			jitter += (change - jitter) / 16f;
+			
+			jitters[nextJitter] = change;
+			nextJitter = (nextJitter + 1) % WINDOW;
+			jitterCount = Math.min(jitterCount + 1, WINDOW);
+		}
+		lastSample = rtt;
+		
+		sort(samples, sampleCount);
+		median = percentile(50, sampleCount);
+		percentile90 = percentile(90, sampleCount);
+		percentile99 = percentile(99, sampleCount);
+		
+		if(jitterCount > 0){
+			sort(jitters, jitterCount);
+			jitterMedian = percentile(50, jitterCount);
+			jitterPercentile90 = percentile(90, jitterCount);
+			jitterPercentile99 = percentile(99, jitterCount);
+		}
+		
+		count = sampleCount;
+	}
+	
+	/**
+	 * Copies the first count values into sorted in ascending order
+	 */
+	private void sort(int[] values, int count){
+		System.arraycopy(values, 0, sorted, 0, count);
+		Arrays.sort(sorted, 0, count);
+	}
+	
+	/**
+	 * @param percentile between 0 and 100
+	 * @param count number of values in sorted
+	 * @return the value in sorted below which the percentage of values fall
+	 */
+	private int percentile(float percentile, int count){
+		int index = (int)Math.ceil(percentile / 100f * count) - 1;
+		return sorted[Math.max(0, Math.min(count - 1, index))];
+	}
+	
+	private void recordPing(boolean replied){
+		
+		if(pingCount == WINDOW && !answered[nextPing]){
+			--lost;
+		}
+		
+		answered[nextPing] = replied;
+		if(!replied){
+			++lost;
+		}
+		
+		nextPing = (nextPing + 1) % WINDOW;
+		pingCount = Math.min(pingCount + 1, WINDOW);
+	}
+	
+	public int getSampleCount(){
+		return count;
+	}
+	
+	/**
+	 * @return the latest round trip time in ms, 0 until the first ping is answered
+	 */
+	public synchronized int getLatest(){
+		return Math.max(0, lastSample);
+	}
+	
+	/**
+	 * @return the median round trip time of the recent samples in ms, 0 without samples
+	 */
+	public int getMedian(){
+		return median;
+	}
+	
+	public int getPercentile90(){
+		return percentile90;
+	}
+	
+	public int getPercentile99(){
+		return percentile99;
+	}
+	
+	/**
+	 * @return the smoothed variation between consecutive round trips in ms
+	 */
+	public synchronized float getJitter(){
+		return jitter;
+	}
+	
+	/**
+	 * @return the median change between consecutive recent round trips in ms, 0 until two pings are answered
+	 */
+	public int getJitterMedian(){
+		return jitterMedian;
+	}
+	
+	public int getJitterPercentile90(){
+		return jitterPercentile90;
+	}
+	
+	public int getJitterPercentile99(){
+		return jitterPercentile99;
+	}
+	
+	/**
+	 * @return the share of recent pings that went unanswered, between 0 and 1
+	 */
+	public synchronized float getLoss(){
+		return pingCount == 0 ? 0 : lost / (float)pingCount;
+	}
+	
+}
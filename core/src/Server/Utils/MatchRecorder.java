@@ -0,0 +1,219 @@
+package Server.Utils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Output;
+
+import Client.Requests.MoveRequest;
+import Client.Utils.GameUtils;
+import Server.Enities.ServerPlayer;
+
+/**
+ * Writes every command a match applies, with the tick it was applied on, to a binary file that MatchReplay can play back.
+ * Commands are serialized with the game's Kryo registrations and buffered, the file is only written to when the buffer fills.
+ * Only used from the match's tick thread. See MatchRecording for the format
+ */
+public class MatchRecorder {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private File file;
+	private Kryo kryo;
+	private Output output;
+
+	private long start;
+	private long lastTick;
+
+	private MatchRecorder(File file, Output output, long start) {
+
+		this.file = file;
+		this.output = output;
+		this.start = start;
+
+		kryo = new Kryo();
+		GameUtils.serializeKryoObjects(kryo);
+
+		lastTick = 0;
+	}
+
+	/**
+	 * Creates the match's recording in the directory
+	 * @param directory
+	 * @param matchID
+	 * @param seed the seed the match draws its words from
+	 * @param timeStep in ms
+	 * @param disconnectGrace in ms
+	 * @param players
+	 * @return null if the file could not be created, the match then runs without a recording
+	 */
+	public static MatchRecorder open(File directory, int matchID, long seed, long timeStep, long disconnectGrace, ServerPlayer[] players){
+
+		long start = System.currentTimeMillis();
+		File file = new File(directory, "match-" + start + "-" + matchID + MatchRecording.EXTENSION);
+
+		directory.mkdirs();
+
+		Output output;
+
+		try {
+			output = new Output(new FileOutputStream(file), BUFFER_SIZE);
+		} catch (FileNotFoundException e) {
+			ServerLog.log("MatchRecorder", "Failed to create " + file);
+			return null;
+		}
+
+		MatchRecorder recorder = new MatchRecorder(file, output, start);
+
+		try {
+
+			output.writeInt(MatchRecording.MAGIC);
+			output.writeVarInt(MatchRecording.VERSION, true);
+			output.writeVarInt(matchID, true);
+			output.writeLong(start);
+			output.writeLong(seed);
+			output.writeVarLong(timeStep, true);
+			output.writeVarLong(disconnectGrace, true);
+
+			output.writeVarInt(players.length, true);
+			for(ServerPlayer player : players){
+				output.writeString(player.getName());
+			}
+
+		} catch (KryoException e) {
+			recorder.fail(e);
+			return null;
+		}
+
+		return recorder;
+	}
+
+	/**
+	 * @param tick the tick the command was applied on
+	 * @param slot the sender's slot
+	 * @param command
+	 */
+	public void command(long tick, int slot, Object command){
+
+		if(!begin(MatchRecording.COMMAND, tick, slot)){
+			return;
+		}
+
+		try {
+
+			kryo.writeClassAndObject(output, command);
+
+			//Not serialized with the move, but decides the order simultaneous moves resolve in
+			if(command instanceof MoveRequest){
+				output.writeVarLong(((MoveRequest)command).received - start, false);
+			}
+
+		} catch (KryoException e) {
+			fail(e);
+		}
+
+	}
+
+	/**
+	 * @param tick the last tick before the disconnect was applied
+	 * @param slot
+	 */
+	public void disconnected(long tick, int slot){
+		begin(MatchRecording.DISCONNECT, tick, slot);
+	}
+
+	/**
+	 * @param tick the last tick before the resume was applied
+	 * @param slot
+	 */
+	public void resumed(long tick, int slot){
+		begin(MatchRecording.RESUME, tick, slot);
+	}
+
+	/**
+	 * Writes how the match ended, so a replay can tell if it still plays out the same, and closes the recording
+	 * @param tick
+	 * @param health by slot
+	 * @param energy by slot
+	 * @param knockouts by slot
+	 */
+	public void end(long tick, int[] health, int[] energy, int[] knockouts){
+
+		if(!begin(MatchRecording.END, tick, 0)){
+			return;
+		}
+
+		try {
+
+			for(int i = 0; i < health.length; ++i){
+				output.writeVarInt(health[i], true);
+				output.writeVarInt(energy[i], true);
+				output.writeVarInt(knockouts[i], true);
+			}
+
+		} catch (KryoException e) {
+			fail(e);
+			return;
+		}
+
+		close();
+	}
+
+	/**
+	 * Closes the recording without an end, e.g. when the server shuts down during the match
+	 */
+	public void close(){
+
+		if(output == null){
+			return;
+		}
+
+		try {
+			output.close();
+		} catch (KryoException e) {
+			ServerLog.log("MatchRecorder", "Failed to close " + file);
+		}
+
+		output = null;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Writes the record's header
+	 * @param type
+	 * @param tick
+	 * @param slot
+	 * @return false if the recording has been closed
+	 */
+	private boolean begin(byte type, long tick, int slot){
+
+		if(output == null){
+			return false;
+		}
+
+		try {
+			output.writeByte(type);
+			output.writeVarLong(tick - lastTick, true);
+			output.writeByte(slot);
+		} catch (KryoException e) {
+			fail(e);
+			return false;
+		}
+
+		lastTick = tick;
+
+		return true;
+	}
+
+	private void fail(KryoException e){
+		ServerLog.log("MatchRecorder", "Stopped recording to " + file + ": " + e.getMessage());
+		close();
+	}
+
+}
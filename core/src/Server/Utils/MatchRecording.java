@@ -0,0 +1,200 @@
+package Server.Utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+
+import Client.Requests.MoveRequest;
+import Client.Utils.GameUtils;
+
+/**
+ * Reads a recording written by MatchRecorder one record at a time.
+ *
+ * The file starts with a header: magic, version, match id, start time, word seed, time step, disconnect grace
+ * and the players' names. Every record is a type, the ticks since the previous record and a slot, followed by
+ * the Kryo serialized command for COMMAND records and each slot's health, energy and knockouts for the END record.
+ * Moves also carry the time they arrived relative to the start.
+ */
+public class MatchRecording {
+
+	public static final String EXTENSION = ".rec";
+
+	public static final int MAGIC = 0x54435231; //TCR1
+	public static final int VERSION = 2; //Commands are read with the current Kryo registrations, bumped whenever their order changes
+
+	public static final byte COMMAND = 0;
+	public static final byte DISCONNECT = 1;
+	public static final byte RESUME = 2;
+	public static final byte END = 3;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private File file;
+	private Kryo kryo;
+	private Input input;
+
+	private int matchID;
+	private long start;
+	private long seed;
+	private long timeStep;
+	private long disconnectGrace;
+	private String[] names;
+
+	//The record read by the last call to next
+	public byte type;
+	public long tick;
+	public int slot;
+	public Object command;
+
+	//Set by the END record
+	public int[] health;
+	public int[] energy;
+	public int[] knockouts;
+
+	/**
+	 * Opens the recording and reads its header
+	 * @param file
+	 * @throws IOException if the file can not be read or is not a recording
+	 */
+	public MatchRecording(File file) throws IOException {
+
+		this.file = file;
+
+		kryo = new Kryo();
+		GameUtils.serializeKryoObjects(kryo);
+
+		input = new Input(new FileInputStream(file), BUFFER_SIZE);
+
+		try {
+
+			if(input.readInt() != MAGIC){
+				throw new IOException(file + " is not a match recording");
+			}
+
+			int version = input.readVarInt(true);
+			if(version != VERSION){
+				throw new IOException(file + " was recorded with version " + version + " but only " + VERSION + " can be read");
+			}
+
+			matchID = input.readVarInt(true);
+			start = input.readLong();
+			seed = input.readLong();
+			timeStep = input.readVarLong(true);
+			disconnectGrace = input.readVarLong(true);
+
+			names = new String[input.readVarInt(true)];
+			for(int i = 0; i < names.length; ++i){
+				names[i] = input.readString();
+			}
+
+		} catch (KryoException e) {
+			input.close();
+			throw new IOException(file + " has an incomplete header", e);
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+
+		tick = 0;
+	}
+
+	/**
+	 * Reads the next record into the public fields
+	 * @return false once the recording has ended. Recordings cut short, e.g. by the server stopping, end without an END record
+	 */
+	public boolean next(){
+
+		if(input == null || input.eof()){
+			return false;
+		}
+
+		try {
+
+			type = input.readByte();
+			tick += input.readVarLong(true);
+			slot = input.readByte();
+			command = null;
+
+			if(type == COMMAND){
+
+				command = kryo.readClassAndObject(input);
+
+				if(command instanceof MoveRequest){
+					((MoveRequest)command).received = start + input.readVarLong(false);
+				}
+
+			}else if(type == END){
+
+				health = new int[names.length];
+				energy = new int[names.length];
+				knockouts = new int[names.length];
+
+				for(int i = 0; i < names.length; ++i){
+					health[i] = input.readVarInt(true);
+					energy[i] = input.readVarInt(true);
+					knockouts[i] = input.readVarInt(true);
+				}
+
+			}
+
+		} catch (KryoException e) {
+			//The last record was only partly written
+			close();
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return true if the recording was read up to its END record
+	 */
+	public boolean hasEnded(){
+		return health != null;
+	}
+
+	public void close(){
+
+		if(input != null){
+			input.close();
+			input = null;
+		}
+
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int getMatchID() {
+		return matchID;
+	}
+
+	/**
+	 * @return when the match started in ms since the epoch
+	 */
+	public long getStart() {
+		return start;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public long getTimeStep() {
+		return timeStep;
+	}
+
+	public long getDisconnectGrace() {
+		return disconnectGrace;
+	}
+
+	public String[] getNames() {
+		return names;
+	}
+
+}
@@ -0,0 +1,277 @@
+package Server.Utils;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import Server.World.ServerGameWorld;
+
+/**
+ * Ticks every registered ServerGameWorld from a fixed set of worker shards instead of giving each match its own Timer thread.
+ * Each match is pinned to one single threaded shard for its whole lifetime so its game logic never runs concurrently
+ * and never needs locks, new matches go to the least loaded shard.
+ */
+public class MatchScheduler {
+
+	public static final long DEFAULT_TIME_STEP = 100; //Determines how often each world is ticked in ms
+	private static final long SHUTDOWN_TIMEOUT = 1000; //How long dispose waits for queued tasks in ms
+	private static final long LATE_LOG_INTERVAL = 1000; //How often each shard reports its late ticks in ms
+
+	private Shard[] shards;
+	private final long timeStep;
+
+	private AtomicInteger registered;
+	private AtomicLong lastTickLag;
+	private AtomicLong maxTickLag;
+
+	public MatchScheduler() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_TIME_STEP);
+	}
+
+	public MatchScheduler(int shardCount, long timeStep) {
+
+		this.timeStep = timeStep;
+
+		registered = new AtomicInteger();
+		lastTickLag = new AtomicLong();
+		maxTickLag = new AtomicLong();
+
+		shards = new Shard[Math.max(1, shardCount)];
+		for(int i = 0; i < shards.length; ++i){
+			shards[i] = new Shard(i);
+		}
+
+	}
+
+	/**
+	 * Starts ticking the world every time step until the returned handle is cancelled
+	 * @param world
+	 * @return
+	 */
+	public ScheduledMatch register(ServerGameWorld world){
+
+		Shard shard = getLeastLoadedShard();
+		shard.load.incrementAndGet();
+
+		ScheduledMatch match = new ScheduledMatch(world, shard);
+		match.start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeStep);
+		match.future = shard.executor.scheduleAtFixedRate(match, timeStep, timeStep, TimeUnit.MILLISECONDS);
+
+		registered.incrementAndGet();
+
+		return match;
+	}
+
+	public void deregister(ScheduledMatch match){
+
+		if(match != null && match.future.cancel(false)){
+			match.shard.load.decrementAndGet();
+			registered.decrementAndGet();
+		}
+
+	}
+
+	/**
+	 * Runs the task on the shard the match is pinned to, tasks arriving after dispose are dropped
+	 * @param match
+	 * @param task
+	 */
+	public void execute(ScheduledMatch match, Runnable task){
+		
+		try {
+			match.shard.executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			//Shutting down
+		}
+		
+	}
+
+	private Shard getLeastLoadedShard(){
+
+		Shard least = shards[0];
+
+		for(int i = 1; i < shards.length; ++i){
+			if(shards[i].load.get() < least.load.get()){
+				least = shards[i];
+			}
+		}
+
+		return least;
+	}
+
+	public int getShardCount(){
+		return shards.length;
+	}
+
+	/**
+	 * Number of matches currently pinned to the shard
+	 * @param shard
+	 * @return
+	 */
+	public int getShardLoad(int shard){
+		return shards[shard].load.get();
+	}
+
+	/**
+	 * How late the most recent tick on the shard ran in ms
+	 * @param shard
+	 * @return
+	 */
+	public long getShardTickLag(int shard){
+		return shards[shard].lastTickLag;
+	}
+
+	public long getTimeStep() {
+		return timeStep;
+	}
+
+	public int getRegisteredCount(){
+		return registered.get();
+	}
+
+	/**
+	 * How late the most recent tick ran in ms
+	 * @return
+	 */
+	public long getLastTickLag(){
+		return lastTickLag.get();
+	}
+
+	/**
+	 * The latest any tick has run in ms since the scheduler started
+	 * @return
+	 */
+	public long getMaxTickLag(){
+		return maxTickLag.get();
+	}
+
+	/**
+	 * Stops ticking, tasks already queued on the shards such as closing recordings still run
+	 */
+	public void dispose(){
+		
+		for(Shard shard : shards){
+			shard.executor.shutdown();
+		}
+		
+		for(Shard shard : shards){
+			
+			try {
+				shard.executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			
+			shard.executor.shutdownNow();
+		}
+		
+	}
+
+	private void recordLag(Shard shard, long lag){
+
+		shard.lastTickLag = lag;
+		lastTickLag.set(lag);
+
+		long max = maxTickLag.get();
+		while(lag > max && !maxTickLag.compareAndSet(max, lag)){
+			max = maxTickLag.get();
+		}
+
+		//Late ticks are summarised per shard, one line per tick would flood the log exactly when the shard is overloaded
+		if(lag > timeStep){
+			shard.lateTicks++;
+			shard.worstLateLag = Math.max(shard.worstLateLag, lag);
+		}
+
+		long now = System.currentTimeMillis();
+		if(shard.lateTicks > 0 && now - shard.lastLateLog >= LATE_LOG_INTERVAL){
+			ServerLog.log("MatchScheduler", "Shard " + shard.index + ": " + shard.lateTicks + " ticks ran late, worst " + shard.worstLateLag + "ms");
+			shard.lateTicks = 0;
+			shard.worstLateLag = 0;
+			shard.lastLateLog = now;
+		}
+
+	}
+
+	public class ScheduledMatch implements Runnable {
+
+		private ServerGameWorld world;
+		private Shard shard;
+		private ScheduledFuture<?> future;
+
+		private long start;
+		private long ticks;
+		private long lastLag;
+
+		private ScheduledMatch(ServerGameWorld world, Shard shard) {
+			this.world = world;
+			this.shard = shard;
+		}
+
+		@Override
+		public void run() {
+
+			long expected = start + TimeUnit.MILLISECONDS.toNanos(timeStep * ticks);
+			lastLag = Math.max(0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - expected));
+			++ticks;
+
+			recordLag(shard, lastLag);
+
+			try{
+				world.tick((float)timeStep/1000f);
+			}catch(RuntimeException e){
+				ServerLog.log("MatchScheduler", "Tick failed: " + e);
+			}
+
+		}
+
+		public long getLastLag() {
+			return lastLag;
+		}
+
+		public long getTicks() {
+			return ticks;
+		}
+
+		public int getShard() {
+			return shard.index;
+		}
+
+	}
+
+	private static class Shard {
+
+		private final int index;
+		private ScheduledThreadPoolExecutor executor;
+		private AtomicInteger load;
+		private volatile long lastTickLag;
+
+		//Only touched from the shard's own thread
+		private int lateTicks;
+		private long worstLateLag;
+		private long lastLateLog;
+
+		private Shard(final int index) {
+
+			this.index = index;
+			load = new AtomicInteger();
+
+			executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory(){
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "match-shard-" + index);
+					thread.setDaemon(true);
+					return thread;
+				}
+
+			});
+		}
+
+	}
+
+}
@@ -0,0 +1,204 @@
+package Server.Utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import Server.Enities.ServerPlayer;
+
+/**
+ * Queue of players waiting for a match. Players are placed into rating buckets (skill, latency...) and paired
+ * in batched passes, a player that has waited long enough may be paired with players in neighbouring buckets.
+ * Enqueue, dequeue and each pairing are O(1).
+ */
+public class MatchmakingQueue {
+
+	private final int bucketWidth;
+	private final long widenInterval;
+
+	private ArrayList<ArrayDeque<Ticket>> buckets;
+	private HashMap<Integer, Ticket> tickets;
+
+	/**
+	 * A single bucket queue, everyone is paired in the order they readied up
+	 */
+	public MatchmakingQueue() {
+		this(1, Integer.MAX_VALUE, 0);
+	}
+
+	/**
+	 * @param bucketCount number of rating buckets
+	 * @param bucketWidth range of ratings held by a bucket
+	 * @param widenInterval how long a player has to wait in ms before their search widens by another bucket, 0 never widens
+	 */
+	public MatchmakingQueue(int bucketCount, int bucketWidth, long widenInterval) {
+
+		this.bucketWidth = Math.max(1, bucketWidth);
+		this.widenInterval = widenInterval;
+
+		buckets = new ArrayList<ArrayDeque<Ticket>>(bucketCount);
+		for(int i = 0; i < Math.max(1, bucketCount); ++i){
+			buckets.add(new ArrayDeque<Ticket>());
+		}
+
+		tickets = new HashMap<Integer, Ticket>();
+	}
+
+	/**
+	 * Adds the player to the queue, does nothing if they are already queued
+	 * @param player
+	 * @param rating used to pick the player's bucket
+	 * @param now current time in ms
+	 */
+	public synchronized void enqueue(ServerPlayer player, int rating, long now){
+
+		if(tickets.containsKey(player.getID())){
+			return;
+		}
+
+		int bucket = rating / bucketWidth;
+		if(bucket < 0){
+			bucket = 0;
+		}else if(bucket >= buckets.size()){
+			bucket = buckets.size() - 1;
+		}
+
+		Ticket ticket = new Ticket(player, now);
+		tickets.put(player.getID(), ticket);
+		buckets.get(bucket).addLast(ticket);
+	}
+
+	/**
+	 * Removes the player from the queue, their ticket is skipped by the next pass
+	 * @param player
+	 */
+	public synchronized void dequeue(ServerPlayer player){
+
+		Ticket ticket = tickets.remove(player.getID());
+
+		if(ticket != null){
+			ticket.cancelled = true;
+		}
+
+	}
+
+	public synchronized int size(){
+		return tickets.size();
+	}
+
+	/**
+	 * Pairs every player that can currently be paired. The pairs are taken off the queue under its lock and handed
+	 * to the listener after it is released, so building the matches never blocks enqueue and dequeue
+	 * @param now current time in ms
+	 * @param listener notified once for every pair, a pair it throws on is logged and the remaining pairs are still notified
+	 * @return the number of matches made
+	 */
+	public int pair(long now, Listener listener){
+
+		ArrayList<ServerPlayer> pairs = new ArrayList<ServerPlayer>();
+
+		synchronized(this){
+			take(now, pairs);
+		}
+
+		int matches = 0;
+
+		for(int i = 0; i + 1 < pairs.size(); i += 2){
+
+			try {
+				listener.matched(pairs.get(i), pairs.get(i + 1));
+				++matches;
+			} catch (RuntimeException e) {
+				ServerLog.log("MatchmakingQueue", "Failed to match " + pairs.get(i).getName() + " with " + pairs.get(i + 1).getName() + ": " + e);
+			}
+
+		}
+
+		return matches;
+	}
+
+	/**
+	 * Removes every pair that can currently be made from the queue, called with the queue's lock held
+	 * @param now
+	 * @param pairs the paired players are added two at a time
+	 */
+	private void take(long now, ArrayList<ServerPlayer> pairs){
+
+		for(int b = 0; b < buckets.size(); ++b){
+
+			ArrayDeque<Ticket> bucket = buckets.get(b);
+
+			while(true){
+
+				Ticket first = poll(bucket);
+				if(first == null){
+					break;
+				}
+
+				Ticket second = poll(bucket);
+
+				//Searches neighbouring buckets once the player has waited long enough
+				if(second == null && widenInterval > 0){
+
+					long range = (now - first.enqueued) / widenInterval;
+
+					for(int d = 1; d <= range && second == null && (b - d >= 0 || b + d < buckets.size()); ++d){
+
+						if(b - d >= 0){
+							second = poll(buckets.get(b - d));
+						}
+
+						if(second == null && b + d < buckets.size()){
+							second = poll(buckets.get(b + d));
+						}
+
+					}
+
+				}
+
+				if(second == null){
+					bucket.addFirst(first);
+					break;
+				}
+
+				tickets.remove(first.player.getID());
+				tickets.remove(second.player.getID());
+
+				pairs.add(first.player);
+				pairs.add(second.player);
+			}
+
+		}
+
+	}
+
+	private Ticket poll(ArrayDeque<Ticket> bucket){
+
+		Ticket ticket = bucket.pollFirst();
+
+		while(ticket != null && ticket.cancelled){
+			ticket = bucket.pollFirst();
+		}
+
+		return ticket;
+	}
+
+	public interface Listener {
+		void matched(ServerPlayer first, ServerPlayer second);
+	}
+
+	private static class Ticket {
+
+		private ServerPlayer player;
+		private long enqueued;
+		private boolean cancelled;
+
+		private Ticket(ServerPlayer player, long enqueued) {
+			this.player = player;
+			this.enqueued = enqueued;
+			cancelled = false;
+		}
+
+	}
+
+}
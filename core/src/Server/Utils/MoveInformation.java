@@ -1,5 +1,7 @@
 package Server.Utils;
 
+import Client.Utils.MoveType;
+
 public class MoveInformation {
 	
 	public static final int MAX_ENERGY = 100;
@@ -24,4 +26,26 @@ public class MoveInformation {
 	public static final float CROSS_MOD = 1.5f;
 	public static final int WEAKEND_MOD = 2;
 	
+	//State Durations in ms
+	public static final long BLOCK_DURATION = 1000;
+	
+	public static int getEnergyCost(MoveType move) {
+		
+		if(move == MoveType.JAB){
+			return JAB_COST;
+		}else if(move == MoveType.CROSS){
+			return CROSS_COST;
+		}else if(move == MoveType.UPPERCUT){
+			return UPPERCUT_COST;
+		}else if(move == MoveType.HOOK){
+			return HOOK_COST;
+		}else if(move == MoveType.BLOCK){
+			return BLOCK_COST;
+		}else if(move == MoveType.COUNTER){
+			return COUNTER_COST;
+		}
+		
+		return MAX_ENERGY + 1; 
+	}
+	
 }
@@ -0,0 +1,160 @@
+package Server.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.esotericsoftware.kryonet.Server;
+
+import Server.Enities.ServerPlayer;
+import Server.Responses.BatchResponse;
+
+/**
+ * Holds back the messages a match sends to its players during a tick and writes them out at the end of the
+ * tick, one serialization and socket write per connection. A single message is sent as is, several are
+ * wrapped in a BatchResponse. Unreliable messages keep only the latest per connection and go over UDP so
+ * a lost datagram never stalls the TCP stream. Only used from the match's own tick thread.
+ */
+public class OutboundBatcher {
+
+	private Server server;
+	private ServerPlayer[] players;
+	
+	//Pending messages indexed by slot
+	private Object[][] pending;
+	private int[] counts;
+	private Object[] unreliable;
+	private BatchResponse[] batches;
+	
+	private ArrayList<TickPool<?>> pools;
+	
+	/**
+	 * @param server
+	 * @param players the match's players indexed by slot
+	 */
+	public OutboundBatcher(Server server, ServerPlayer[] players) {
+		
+		this.server = server;
+		this.players = players;
+		
+		pending = new Object[players.length][];
+		counts = new int[players.length];
+		unreliable = new Object[players.length];
+		batches = new BatchResponse[players.length];
+		
+		for(int i = 0; i < players.length; ++i){
+			pending[i] = new Object[4];
+			batches[i] = new BatchResponse();
+		}
+		
+		pools = new ArrayList<TickPool<?>>();
+		
+	}
+	
+	/**
+	 * The pool is released after every flush
+	 * @param pool
+	 * @return the pool
+	 */
+	public <T> TickPool<T> addPool(TickPool<T> pool){
+		pools.add(pool);
+		return pool;
+	}
+	
+	public void removePool(TickPool<?> pool){
+		pools.remove(pool);
+	}
+	
+	/**
+	 * Queues the message for the connection until the next flush. Connections that are not part of the match are sent to straight away
+	 * @param connectionID
+	 * @param message
+	 */
+	public void send(int connectionID, Object message){
+		
+		for(int i = 0; i < players.length; ++i){
+			if(players[i].getID() == connectionID){
+				add(i, message);
+				return;
+			}
+		}
+		
+		server.sendToTCP(connectionID, message);
+	}
+	
+	/**
+	 * Queues the message to be sent over UDP at the next flush, replacing any unreliable message already queued for the connection
+	 * @param connectionID
+	 * @param message
+	 */
+	public void sendUnreliable(int connectionID, Object message){
+		
+		for(int i = 0; i < players.length; ++i){
+			if(players[i].getID() == connectionID){
+				unreliable[i] = message;
+				return;
+			}
+		}
+		
+	}
+	
+	public void sendToAll(Object message){
+		for(int i = 0; i < players.length; ++i){
+			add(i, message);
+		}
+	}
+	
+	private void add(int slot, Object message){
+		
+		if(counts[slot] == pending[slot].length){
+			pending[slot] = Arrays.copyOf(pending[slot], counts[slot] * 2);
+		}
+		
+		pending[slot][counts[slot]++] = message;
+	}
+	
+	/**
+	 * Writes out everything queued since the last flush
+	 */
+	public void flush(){
+		
+		for(int i = 0; i < players.length; ++i){
+			
+			int count = counts[i];
+			
+			if(count == 1){
+				server.sendToTCP(players[i].getID(), pending[i][0]);
+			}else if(count > 1){
+				//Only the first count messages are serialized, the array is not copied
+				batches[i].messages = pending[i];
+				batches[i].count = count;
+				server.sendToTCP(players[i].getID(), batches[i]);
+				batches[i].messages = null;
+			}
+			
+			Arrays.fill(pending[i], 0, count, null);
+			counts[i] = 0;
+			
+			if(unreliable[i] != null){
+				sendUDP(players[i].getID(), unreliable[i]);
+				unreliable[i] = null;
+			}
+		}
+		
+		for(int i = 0; i < pools.size(); ++i){
+			pools.get(i).reset();
+		}
+		
+	}
+	
+	private void sendUDP(int connectionID, Object message){
+		
+		try{
+			server.sendToUDP(connectionID, message);
+		}catch(IllegalStateException e){
+			//The client never opened its UDP connection
+			server.sendToTCP(connectionID, message);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,131 @@
+package Server.Utils;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import Server.World.SessionRegistry;
+
+/**
+ * Settings for a server. Defaults match the server hosted from the game's menu, a dedicated server reads them from
+ * an optional properties file and key=value arguments, arguments win over the file
+ */
+public class ServerConfig {
+
+	public int tcpPort = 54555;
+	public int udpPort = 54777;
+	public int discoveryPort = DiscoveryService.DEFAULT_PORT;
+	
+	public int tickRate = (int)(1000 / MatchScheduler.DEFAULT_TIME_STEP); //Match updates per second
+	public int shards = Runtime.getRuntime().availableProcessors(); //Worker threads ticking the matches
+	
+	public long resumeGrace = SessionRegistry.DEFAULT_GRACE_PERIOD; //ms
+	public long metricsInterval = ServerMetrics.DEFAULT_INTERVAL; //ms
+	
+	public String assets = "."; //Directory holding the Words folder when running without the game
+	public String record = null; //Directory every match's commands are recorded to for replaying, matches are not recorded when null
+	
+	public ServerConfig() {}
+	
+	public ServerConfig(int tcpPort, int udpPort) {
+		this.tcpPort = tcpPort;
+		this.udpPort = udpPort;
+	}
+	
+	/**
+	 * @return the time between match updates in ms
+	 */
+	public long getTimeStep(){
+		return Math.max(1, 1000 / tickRate);
+	}
+	
+	/**
+	 * Reads the arguments of a dedicated server, e.g. "config=server.properties tcp=6000 tickRate=20"
+	 * @param args
+	 * @return
+	 * @throws IllegalArgumentException if an argument is unknown or malformed
+	 * @throws IOException if the config file could not be read
+	 */
+	public static ServerConfig parse(String[] args) throws IOException {
+		
+		Properties properties = new Properties();
+		
+		for(String arg : args){
+			
+			int split = arg.indexOf('=');
+			if(split <= 0){
+				throw new IllegalArgumentException("Expected key=value but got " + arg);
+			}
+			
+			if(arg.substring(0, split).equals("config")){
+				
+				InputStream in = new FileInputStream(arg.substring(split + 1));
+				try {
+					properties.load(in);
+				} finally {
+					in.close();
+				}
+				
+			}
+			
+		}
+		
+		for(String arg : args){
+			int split = arg.indexOf('=');
+			properties.setProperty(arg.substring(0, split), arg.substring(split + 1));
+		}
+		
+		ServerConfig config = new ServerConfig();
+		
+		for(String key : properties.stringPropertyNames()){
+			config.set(key, properties.getProperty(key).trim());
+		}
+		
+		return config;
+	}
+	
+	private void set(String key, String value){
+		
+		try {
+			
+			if(key.equals("tcp")){
+				tcpPort = Integer.parseInt(value);
+			}else if(key.equals("udp")){
+				udpPort = Integer.parseInt(value);
+			}else if(key.equals("discovery")){
+				discoveryPort = Integer.parseInt(value);
+			}else if(key.equals("tickRate")){
+				tickRate = Integer.parseInt(value);
+			}else if(key.equals("shards")){
+				shards = Integer.parseInt(value);
+			}else if(key.equals("resumeGrace")){
+				resumeGrace = Long.parseLong(value);
+			}else if(key.equals("metricsInterval")){
+				metricsInterval = Long.parseLong(value);
+			}else if(key.equals("assets")){
+				assets = value;
+			}else if(key.equals("record")){
+				record = value.isEmpty() ? null : value;
+			}else if(!key.equals("config")){
+				throw new IllegalArgumentException("Unknown setting " + key);
+			}
+			
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Expected a number for " + key + " but got " + value);
+		}
+		
+		if(tickRate <= 0 || shards <= 0){
+			throw new IllegalArgumentException("tickRate and shards have to be positive");
+		}
+		
+	}
+	
+	@Override
+	public String toString() {
+		return "tcp=" + tcpPort + " udp=" + udpPort + " discovery=" + discoveryPort + " tickRate=" + tickRate
+				+ " shards=" + shards + " resumeGrace=" + resumeGrace + " metricsInterval=" + metricsInterval + " assets=" + assets
+				+ (record != null ? " record=" + record : "");
+	}
+	
+}
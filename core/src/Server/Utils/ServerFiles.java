@@ -0,0 +1,74 @@
+package Server.Utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * File access for the server packages. Reads the game's internal assets while the server runs inside the game
+ * and plain files under an assets directory when it runs as a dedicated server
+ */
+public class ServerFiles {
+
+	public interface Source {
+		InputStream read(String path) throws IOException;
+	}
+	
+	public static final Source GDX = new Source(){
+		
+		@Override
+		public InputStream read(String path) throws IOException {
+			
+			try {
+				return Gdx.files.internal(path).read();
+			} catch (GdxRuntimeException e) {
+				throw new IOException("Could not read " + path, e);
+			}
+			
+		}
+		
+	};
+	
+	/**
+	 * Reads files relative to a directory
+	 */
+	public static class Directory implements Source {
+		
+		private File root;
+		
+		public Directory(File root) {
+			this.root = root;
+		}
+		
+		@Override
+		public InputStream read(String path) throws IOException {
+			return new FileInputStream(new File(root, path));
+		}
+		
+	}
+	
+	private static volatile Source source;
+	
+	/**
+	 * @param source null picks libGDX or the working directory depending on whether an application is running
+	 */
+	public static void setSource(Source source){
+		ServerFiles.source = source;
+	}
+	
+	public static InputStream read(String path) throws IOException {
+		
+		Source current = source;
+		
+		if(current == null){
+			current = Gdx.files != null ? GDX : new Directory(new File("."));
+		}
+		
+		return current.read(path);
+	}
+	
+}
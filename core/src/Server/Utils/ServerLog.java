@@ -0,0 +1,58 @@
+package Server.Utils;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import com.badlogic.gdx.Gdx;
+
+/**
+ * Logging for the server packages. Goes through libGDX while the server runs inside the game
+ * and to the console when it runs as a dedicated server without an application
+ */
+public class ServerLog {
+
+	public interface Logger {
+		void log(String tag, String message);
+	}
+	
+	public static final Logger GDX = new Logger(){
+		
+		@Override
+		public void log(String tag, String message) {
+			Gdx.app.log(tag, message);
+		}
+		
+	};
+	
+	public static final Logger CONSOLE = new Logger(){
+		
+		private final SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS");
+		
+		@Override
+		public synchronized void log(String tag, String message) {
+			System.out.println(format.format(new Date()) + " [" + tag + "] " + message);
+		}
+		
+	};
+	
+	private static volatile Logger logger;
+	
+	/**
+	 * @param logger null picks libGDX or the console depending on whether an application is running
+	 */
+	public static void setLogger(Logger logger){
+		ServerLog.logger = logger;
+	}
+	
+	public static void log(String tag, String message){
+		
+		Logger current = logger;
+		
+		if(current == null){
+			current = Gdx.app != null ? GDX : CONSOLE;
+		}
+		
+		current.log(tag, message);
+	}
+	
+}
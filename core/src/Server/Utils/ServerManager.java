@@ -1,30 +1,62 @@
 package Server.Utils;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
-import com.badlogic.gdx.Gdx;
 import com.esotericsoftware.kryonet.Listener;
 import com.esotericsoftware.kryonet.Server;
 
 import Client.Utils.GameUtils;
-import Server.World.ServerGameWorld;
+import Server.Listeners.LatencyService;
+import Server.Listeners.MatchRouter;
+import Server.Listeners.TimeSyncListener;
+import Server.World.MatchRegistry;
 import Server.World.ServerLobbyWorld;
+import Server.World.SessionRegistry;
 
 @SuppressWarnings("unused")
 public class ServerManager {
 
 	private Server server;
 	private ServerLobbyWorld lobby;
+	private MatchScheduler scheduler;
+	private MatchRouter router;
+	private MatchRegistry registry;
+	private LatencyService latency;
+	private SessionRegistry sessions;
+	private ServerMetrics metrics;
+	private DiscoveryService discovery;
 	
-	private HashMap<Integer, ServerGameWorld> games;
+	private ServerConfig config;
 	
 	public ServerManager(int tcp, int udp) {
+		this(new ServerConfig(tcp, udp));
+	}
+	
+	public ServerManager(ServerConfig config) {
+		
+		this.config = config;
 		
 		server = new Server();
 		GameUtils.serializeKryoObjects(server.getKryo());		
 		server.start();	
 		
-		games = new HashMap<Integer, ServerGameWorld>();
+		scheduler = new MatchScheduler(config.shards, config.getTimeStep());
+		
+		router = new MatchRouter();
+		server.addListener(router);
+		
+		registry = new MatchRegistry();
+		
+		latency = new LatencyService(server);
+		server.addListener(latency);
+		server.addListener(new TimeSyncListener());
+		
+		metrics = new ServerMetrics(scheduler, registry, latency, config.metricsInterval);
+		
+		sessions = new SessionRegistry(config.resumeGrace);
+		
+		discovery = new DiscoveryService(server, scheduler, registry);
 		
 	}
 	
@@ -32,18 +64,73 @@ public class ServerManager {
 		return server;
 	}
 
+	/**
+	 * Binds the ports from the server's config
+	 * @return
+	 */
+	public boolean bind() {
+		return bind(config.tcpPort, config.udpPort);
+	}
+	
 	public boolean bind(int tcp, int udp) {
 		
 		//Binds server
 		try {
 			server.bind(tcp, udp);
-			lobby = new ServerLobbyWorld(server);
+			lobby = new ServerLobbyWorld(server, scheduler, router, registry, latency, sessions, config.record != null ? new File(config.record) : null);
 		} catch (IOException e) {
-			Gdx.app.log("ServerManager: ", "Failed to bind ports");
+			ServerLog.log("ServerManager: ", "Failed to bind ports");
 			return false;
 		}
+		
+		//Another server on this machine may already be answering discovery, players can still connect by address
+		try {
+			discovery.bind(config.discoveryPort, tcp, udp);
+		} catch (IOException e) {
+			ServerLog.log("ServerManager: ", "Failed to bind the discovery port");
+		}
 			
 		return true;
 	}
 	
+	public MatchScheduler getScheduler(){
+		return scheduler;
+	}
+	
+	public MatchRegistry getRegistry(){
+		return registry;
+	}
+	
+	public LatencyService getLatency(){
+		return latency;
+	}
+	
+	public ServerMetrics getMetrics(){
+		return metrics;
+	}
+	
+	public ServerConfig getConfig(){
+		return config;
+	}
+	
+	/**
+	 * Closes every connection and stops all of the server's threads
+	 */
+	public void dispose(){
+		
+		//Closing the connections hands the disconnects to the matches, so the shards stop last
+		server.stop();
+		
+		if(lobby != null){
+			lobby.dispose();
+		}
+		
+		registry.closeRecordings();
+		
+		discovery.dispose();
+		metrics.dispose();
+		latency.dispose();
+		scheduler.dispose();
+	}
+	
 }
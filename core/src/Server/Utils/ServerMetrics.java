@@ -0,0 +1,100 @@
+package Server.Utils;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+import Server.Listeners.LatencyService;
+import Server.World.MatchRegistry;
+
+/**
+ * Periodically logs the server's load: running matches, how late the match shards are ticking,
+ * and the latency of the connected players
+ */
+public class ServerMetrics {
+
+	public static final long DEFAULT_INTERVAL = 10000;
+	
+	private MatchScheduler scheduler;
+	private MatchRegistry registry;
+	private LatencyService latency;
+	
+	private Timer timer;
+	
+	public ServerMetrics(MatchScheduler scheduler, MatchRegistry registry, LatencyService latency) {
+		this(scheduler, registry, latency, DEFAULT_INTERVAL);
+	}
+	
+	/**
+	 * @param scheduler
+	 * @param registry
+	 * @param latency
+	 * @param interval time between reports in ms
+	 */
+	public ServerMetrics(MatchScheduler scheduler, MatchRegistry registry, LatencyService latency, long interval) {
+		
+		this.scheduler = scheduler;
+		this.registry = registry;
+		this.latency = latency;
+		
+		timer = new Timer("server-metrics", true);
+		timer.scheduleAtFixedRate(new TimerTask(){
+			
+			@Override
+			public void run() {
+				ServerLog.log("ServerMetrics", getReport());
+			}
+			
+		}, interval, interval);
+	}
+	
+	/**
+	 * @return a single line summary of the server's current load
+	 */
+	public String getReport(){
+		
+		int connections = 0;
+		float rttTotal = 0;
+		int rttWorst = 0;
+		float jitterTotal = 0;
+		int jitterWorst = 0;
+		float lossTotal = 0;
+		
+		for(LatencyStats stats : latency.getAllStats()){
+			
+			if(stats.getSampleCount() == 0){
+				continue;
+			}
+			
+			++connections;
+			rttTotal += stats.getMedian();
+			rttWorst = Math.max(rttWorst, stats.getPercentile99());
+			jitterTotal += stats.getJitterMedian();
+			jitterWorst = Math.max(jitterWorst, stats.getJitterPercentile99());
+			lossTotal += stats.getLoss();
+		}
+		
+		StringBuilder report = new StringBuilder();
+		report.append("matches=").append(registry.getActiveCount());
+		report.append(" knockouts=").append(registry.getKnockoutCount());
+		report.append(" completing=").append(registry.getCompletingCount());
+		report.append(" completed=").append(registry.getCompletedCount());
+		report.append(" tickLag=").append(scheduler.getLastTickLag()).append("ms");
+		report.append(" maxTickLag=").append(scheduler.getMaxTickLag()).append("ms");
+		report.append(" players=").append(connections);
+		
+		if(connections > 0){
+			report.append(" rttMedian=").append(Math.round(rttTotal / connections)).append("ms");
+			report.append(" rttP99Worst=").append(rttWorst).append("ms");
+			report.append(" jitterMedian=").append(Math.round(jitterTotal / connections)).append("ms");
+			report.append(" jitterP99Worst=").append(jitterWorst).append("ms");
+			report.append(" loss=").append(Math.round(lossTotal / connections * 100)).append("%");
+		}
+		
+		return report.toString();
+	}
+	
+	public void dispose(){
+		timer.cancel();
+	}
+	
+}
@@ -0,0 +1,143 @@
+package Server.Utils;
+
+import Server.Components.StateComponent;
+
+/**
+ * Hashed timing wheel used to return timed player states (BLOCKING, WEAKEND, JABBING...) back to OPEN.
+ * The wheel is advanced by the owning world's tick so no threads are created, and timers are intrusive
+ * nodes owned by each player so scheduling and cancelling is O(1) and allocation free.
+ */
+public class StateTimerWheel {
+
+	private static final int WHEEL_SIZE = 64; //Must be a power of two
+	private static final int MASK = WHEEL_SIZE - 1;
+
+	private final long tickDuration;
+	private StateTimer[] slots;
+	private long currentTick;
+
+	public StateTimerWheel(long tickDuration) {
+		this.tickDuration = tickDuration;
+		slots = new StateTimer[WHEEL_SIZE];
+		currentTick = 0;
+	}
+
+	/**
+	 * Sets the component to the state and schedules it to return to OPEN after the timeout,
+	 * replacing any pending timeout on the same timer
+	 * @param timer
+	 * @param component
+	 * @param state
+	 * @param timeout in ms
+	 */
+	public void schedule(StateTimer timer, StateComponent component, PlayerState state, long timeout){
+
+		cancel(timer);
+
+		component.state = state;
+
+		long ticks = (timeout + tickDuration - 1) / tickDuration;
+		if(ticks < 1){
+			ticks = 1;
+		}
+
+		timer.component = component;
+		timer.state = state;
+		timer.deadline = currentTick + ticks;
+		timer.wheel = this;
+
+		int slot = (int)(timer.deadline & MASK);
+		timer.next = slots[slot];
+		timer.prev = null;
+		if(slots[slot] != null){
+			slots[slot].prev = timer;
+		}
+		slots[slot] = timer;
+
+	}
+
+	public void cancel(StateTimer timer){
+
+		if(timer.wheel != this){
+			if(timer.wheel != null){
+				timer.wheel.cancel(timer);
+			}
+			return;
+		}
+
+		int slot = (int)(timer.deadline & MASK);
+
+		if(timer.prev != null){
+			timer.prev.next = timer.next;
+		}else{
+			slots[slot] = timer.next;
+		}
+
+		if(timer.next != null){
+			timer.next.prev = timer.prev;
+		}
+
+		timer.next = null;
+		timer.prev = null;
+		timer.wheel = null;
+	}
+
+	/**
+	 * Moves the wheel forward by one tick and expires every timer that is due
+	 */
+	public void advance(){
+
+		++currentTick;
+
+		StateTimer timer = slots[(int)(currentTick & MASK)];
+
+		while(timer != null){
+
+			StateTimer next = timer.next;
+
+			if(timer.deadline <= currentTick){
+				cancel(timer);
+				timer.expire();
+			}
+
+			timer = next;
+		}
+
+	}
+
+	public long getTickDuration() {
+		return tickDuration;
+	}
+
+	public static class StateTimer {
+
+		private StateTimerWheel wheel;
+		private StateTimer prev;
+		private StateTimer next;
+		private long deadline;
+
+		private StateComponent component;
+		private PlayerState state;
+
+		public void cancel(){
+			if(wheel != null){
+				wheel.cancel(this);
+			}
+		}
+
+		public boolean isScheduled(){
+			return wheel != null;
+		}
+
+		private void expire(){
+
+			//Only reverts if nothing else has changed the state in the meantime
+			if(component.state == state){
+				component.state = PlayerState.OPEN;
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,44 @@
+package Server.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Pool of message instances that are reused every tick. Messages obtained during a tick stay untouched until
+ * the OutboundBatcher has written them out, after which the whole pool is released at once. KryoNet serializes
+ * a message while it is being sent so nothing holds on to an instance after the flush.
+ * @param <T>
+ */
+public abstract class TickPool<T> {
+
+	private Object[] items;
+	private int used;
+	
+	public TickPool() {
+		items = new Object[4];
+		used = 0;
+	}
+	
+	@SuppressWarnings("unchecked")
+	public T obtain(){
+		
+		if(used == items.length){
+			items = Arrays.copyOf(items, used * 2);
+		}
+		
+		if(items[used] == null){
+			items[used] = create();
+		}
+		
+		return (T)items[used++];
+	}
+	
+	/**
+	 * Makes every instance available again, only called once the tick's messages have been sent
+	 */
+	public void reset(){
+		used = 0;
+	}
+	
+	protected abstract T create();
+	
+}
@@ -1,11 +1,11 @@
 package Server.Utils;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Random;
 import java.util.Scanner;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.math.MathUtils;
 
 public class WordUtil {
@@ -13,15 +13,24 @@ public class WordUtil {
 	private static final int WORD_MIN_LENGTH = 3;
 	private static final int WORD_MAX_LENGTH = 7;
 	
+	public static final String WORDS_PATH = "Words/words.txt";
+	
 	private static HashMap<Integer, LinkedList<String>> words;
 	
-	public static void initializeWords(){
+	/**
+	 * Loads the word list through ServerFiles
+	 * @return false if the list could not be read
+	 */
+	public static boolean initializeWords(){
 		
 		Scanner in = null;
-			
-		FileHandle handle = Gdx.files.internal("Words/words.txt");
 		
-		in = new Scanner(handle.read());
+		try {
+			in = new Scanner(ServerFiles.read(WORDS_PATH));
+		} catch (IOException e) {
+			ServerLog.log("WordUtil", "Failed to read " + WORDS_PATH);
+			return false;
+		}
 		
 		words = new HashMap<Integer, LinkedList<String>>();
 		
@@ -42,6 +51,7 @@ public class WordUtil {
 			in.close();
 		}
 		
+		return true;
 	}
 	
 	private static void setUpMap() {
@@ -53,8 +63,17 @@ public class WordUtil {
 	}
 
 	public static String getWord(){
-		LinkedList<String> l = words.get(MathUtils.random(WORD_MIN_LENGTH, WORD_MAX_LENGTH));
-		return l.get(MathUtils.random(l.size() - 1));
+		return getWord(MathUtils.random);
+	}
+	
+	/**
+	 * Returns a word of random length drawn from the generator
+	 * @param random
+	 * @return
+	 */
+	public static String getWord(Random random){
+		LinkedList<String> l = words.get(WORD_MIN_LENGTH + random.nextInt(WORD_MAX_LENGTH - WORD_MIN_LENGTH + 1));
+		return l.get(random.nextInt(l.size()));
 	}
 	
 	/**
@@ -63,6 +82,16 @@ public class WordUtil {
 	 * @return
 	 */
 	public static String getWord(int length){
+		return getWord(length, MathUtils.random);
+	}
+	
+	/**
+	 * Returns a word of the specified length drawn from the generator, if there are no words of that length it returns null
+	 * @param length
+	 * @param random
+	 * @return
+	 */
+	public static String getWord(int length, Random random){
 		
 		if(words.containsKey(length)){
 			LinkedList<String> l = words.get(length);
@@ -71,7 +100,7 @@ public class WordUtil {
 				length = l.size() - 1;
 			}
 			
-			return l.get(MathUtils.random(l.size() - 1));
+			return l.get(random.nextInt(l.size()));
 		}else{
 			return null;
 		}
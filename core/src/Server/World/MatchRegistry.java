@@ -0,0 +1,100 @@
+package Server.World;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps every running ServerGameWorld by match id. Worlds report their own lifecycle changes
+ * and are removed the moment they complete so their engines can be reclaimed straight away.
+ */
+public class MatchRegistry {
+
+	private ConcurrentHashMap<Integer, ServerGameWorld> matches;
+
+	private AtomicInteger nextID;
+	private AtomicInteger knockouts;
+	private AtomicInteger completing;
+	private AtomicInteger completed;
+
+	public MatchRegistry() {
+
+		matches = new ConcurrentHashMap<Integer, ServerGameWorld>();
+
+		nextID = new AtomicInteger();
+		knockouts = new AtomicInteger();
+		completing = new AtomicInteger();
+		completed = new AtomicInteger();
+	}
+
+	public int nextMatchID(){
+		return nextID.getAndIncrement();
+	}
+
+	public void add(ServerGameWorld world){
+		matches.put(world.getID(), world);
+	}
+
+	public ServerGameWorld getMatch(int id){
+		return matches.get(id);
+	}
+
+	void knockoutStarted(ServerGameWorld world){
+		knockouts.incrementAndGet();
+	}
+
+	void knockoutEnded(ServerGameWorld world){
+		knockouts.decrementAndGet();
+	}
+
+	/**
+	 * The match is winding down, e.g. waiting out a disconnected player's grace period
+	 * @param world
+	 */
+	void completing(ServerGameWorld world){
+		completing.incrementAndGet();
+	}
+
+	void completingEnded(ServerGameWorld world){
+		completing.decrementAndGet();
+	}
+
+	void completed(ServerGameWorld world){
+
+		if(matches.remove(world.getID(), world)){
+			completed.incrementAndGet();
+		}
+
+	}
+
+	/**
+	 * Closes the recordings of every running match, they are closed on the matches' shards
+	 */
+	public void closeRecordings(){
+
+		for(ServerGameWorld world : matches.values()){
+			world.closeRecording();
+		}
+
+	}
+
+	public int getActiveCount(){
+		return matches.size();
+	}
+
+	public int getKnockoutCount(){
+		return knockouts.get();
+	}
+
+	public int getCompletingCount(){
+		return completing.get();
+	}
+
+	/**
+	 * Total number of matches completed since the server started
+	 * @return
+	 */
+	public int getCompletedCount(){
+		return completed.get();
+	}
+
+}
@@ -0,0 +1,241 @@
+package Server.World;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Server;
+
+import Server.Components.EnergyComponent;
+import Server.Components.HealthComponent;
+import Server.Enities.ServerPlayer;
+import Server.Listeners.LatencyService;
+import Server.Listeners.MatchRouter;
+import Server.Utils.MatchRecording;
+
+/**
+ * Plays a recorded match back through a ServerGameWorld. The world is ticked on a virtual clock instead of a
+ * MatchScheduler, so a match can be replayed many times faster than it was played, and every recorded command is
+ * applied on the tick it was applied on originally. The words are drawn from the recorded seed, so a replay of an
+ * unchanged server ends exactly like the recorded match did.
+ * Nothing is sent anywhere, the world's messages go to a server that is never started
+ */
+public class MatchReplay {
+
+	private ComponentMapper<HealthComponent> hm = ComponentMapper.getFor(HealthComponent.class);
+	private ComponentMapper<EnergyComponent> em = ComponentMapper.getFor(EnergyComponent.class);
+
+	private MatchRecording recording;
+
+	public MatchReplay(MatchRecording recording) {
+		this.recording = recording;
+	}
+
+	/**
+	 * Replays the whole recording on the calling thread and closes it
+	 * @param speed multiple of real time to tick at, 0 ticks as fast as possible
+	 * @return
+	 */
+	public Result run(float speed){
+
+		Server server = new Server();
+		LatencyService latency = new LatencyService(server);
+
+		String[] names = recording.getNames();
+		ServerPlayer[] players = new ServerPlayer[names.length];
+		Connection[] connections = new Connection[names.length];
+
+		for(int i = 0; i < players.length; ++i){
+			connections[i] = new ReplayConnection(i + 1);
+			players[i] = new ServerPlayer(names[i], connections[i]);
+		}
+
+		long timeStep = recording.getTimeStep();
+		float delta = timeStep / 1000f;
+		long tickDuration = speed > 0 ? (long)(TimeUnit.MILLISECONDS.toNanos(timeStep) / speed) : 0;
+
+		ServerGameWorld world = new ServerGameWorld(recording.getMatchID(), players, server, timeStep, new MatchRouter(),
+				new MatchRegistry(), latency, recording.getDisconnectGrace(), recording.getSeed());
+
+		//Kept since the players are given new components once the match completes
+		HealthComponent[] health = new HealthComponent[players.length];
+		EnergyComponent[] energy = new EnergyComponent[players.length];
+		for(int i = 0; i < players.length; ++i){
+			health[i] = hm.get(players[i]);
+			energy[i] = em.get(players[i]);
+		}
+
+		Result result = new Result();
+		result.timeStep = timeStep;
+
+		long start = System.nanoTime();
+
+		try {
+
+			while(recording.next() && !world.isCompleted()){
+
+				if(recording.type == MatchRecording.END){
+					//Plays out the ticks after the last command, e.g. the rest of a knockout's countdown
+					tick(world, recording.tick, delta, start, tickDuration);
+					break;
+				}
+
+				//Commands are applied during their tick, disconnects and resumes between ticks
+				tick(world, recording.type == MatchRecording.COMMAND ? recording.tick - 1 : recording.tick, delta, start, tickDuration);
+
+				if(recording.type == MatchRecording.COMMAND){
+					world.replayCommand(recording.slot, recording.command);
+					++result.commands;
+				}else if(recording.type == MatchRecording.DISCONNECT){
+					world.replayDisconnect(recording.slot);
+				}else if(recording.type == MatchRecording.RESUME){
+					world.replayResume(recording.slot, connections[recording.slot]);
+				}
+
+			}
+
+			//Applies the commands queued for the last tick of a recording that was cut short
+			if(!world.isCompleted() && !recording.hasEnded()){
+				tick(world, world.getTicks() + 1, delta, start, tickDuration);
+			}
+
+			result.elapsed = System.nanoTime() - start;
+			result.ticks = world.getTicks();
+			result.completed = world.isCompleted();
+			readStats(health, energy, result);
+
+			while(!recording.hasEnded() && recording.next()){
+				//A replay that completed early still compares against the recorded end
+			}
+
+			result.recordedEnd = recording.hasEnded();
+
+			if(recording.hasEnded()){
+				result.matches = result.completed && result.ticks == recording.tick
+						&& Arrays.equals(result.health, recording.health)
+						&& Arrays.equals(result.energy, recording.energy)
+						&& Arrays.equals(result.knockouts, recording.knockouts);
+			}
+
+		} finally {
+
+			if(!world.isCompleted()){
+				world.dispose();
+			}
+
+			recording.close();
+			latency.dispose();
+			server.close();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Ticks the world up to the tick, waiting between ticks when replaying at a set speed
+	 */
+	private void tick(ServerGameWorld world, long tick, float delta, long start, long tickDuration){
+
+		while(world.getTicks() < tick && !world.isCompleted()){
+
+			if(tickDuration > 0){
+
+				long wait = start + world.getTicks() * tickDuration - System.nanoTime();
+
+				if(wait > 0){
+					try {
+						TimeUnit.NANOSECONDS.sleep(wait);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+
+			}
+
+			long before = world.getTicks();
+			world.tick(delta);
+
+			//The world stops counting ticks once it has completed
+			if(world.getTicks() == before){
+				return;
+			}
+
+		}
+
+	}
+
+	private void readStats(HealthComponent[] health, EnergyComponent[] energy, Result result){
+
+		result.health = new int[health.length];
+		result.energy = new int[health.length];
+		result.knockouts = new int[health.length];
+
+		for(int i = 0; i < health.length; ++i){
+			result.health[i] = health[i].health;
+			result.energy[i] = energy[i].energy;
+			result.knockouts[i] = health[i].knockouts;
+		}
+
+	}
+
+	/**
+	 * How a replay went compared to the recorded match
+	 */
+	public static class Result {
+
+		public long ticks;
+		public long commands;
+		public long elapsed; //ns
+		public long timeStep; //ms
+
+		public boolean completed;
+		public boolean recordedEnd; //false if the recording was cut short, nothing can be compared then
+		public boolean matches; //The replay ended on the same tick with the same stats as the recording
+
+		public int[] health;
+		public int[] energy;
+		public int[] knockouts;
+
+		/**
+		 * @return how many times faster than real time the match was replayed
+		 */
+		public double getSpeedup(){
+			return elapsed > 0 ? (double)TimeUnit.MILLISECONDS.toNanos(ticks * timeStep) / elapsed : 0;
+		}
+
+		@Override
+		public String toString() {
+			return "ticks=" + ticks + " commands=" + commands + " time=" + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms"
+					+ " speedup=" + Math.round(getSpeedup()) + "x"
+					+ " health=" + Arrays.toString(health) + " energy=" + Arrays.toString(energy) + " knockouts=" + Arrays.toString(knockouts)
+					+ (recordedEnd ? (matches ? " matches the recording" : " DIVERGED from the recording") : " recording was cut short");
+		}
+
+	}
+
+	/**
+	 * Stands in for a player's connection, only its id is used and anything sent to it directly is dropped
+	 */
+	private static class ReplayConnection extends Connection {
+
+		private final int id;
+
+		private ReplayConnection(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public int getID() {
+			return id;
+		}
+
+		@Override
+		public int sendTCP(Object object) {
+			return 0;
+		}
+
+	}
+
+}
@@ -1,112 +1,452 @@
 package Server.World;
 
-import java.util.Stack;
+import java.io.File;
+import java.util.Random;
 
 import com.badlogic.ashley.core.ComponentMapper;
 import com.badlogic.ashley.core.Engine;
-import com.badlogic.ashley.core.Entity;
-import com.badlogic.gdx.Gdx;
 import com.esotericsoftware.kryonet.Connection;
-import com.esotericsoftware.kryonet.Listener;
 import com.esotericsoftware.kryonet.Server;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
+import Client.Requests.KeystrokeRequest;
+import Client.Requests.MoveRequest;
 import Client.Requests.StartMatchRequest;
+import Client.Requests.WordSubmissionRequest;
+import Client.Utils.KeystrokeCodec;
 import Server.Components.EnergyComponent;
 import Server.Components.HealthComponent;
-import Server.Components.IdComponent;
 import Server.Components.StateComponent;
+import Server.Components.WordComponent;
 import Server.Enities.ServerPlayer;
+import Server.Listeners.LatencyService;
+import Server.Listeners.MatchRouter;
 import Server.Responses.GameOverResponse;
-import Server.Responses.KOResponse;
-import Server.Responses.StatResponse;
-import Server.Responses.WordSubmissionResponse;
+import Server.Responses.PauseResponse;
+import Server.Responses.ResumeResponse;
 import Server.Systems.KnockoutSystem;
 import Server.Systems.MoveSystem;
+import Server.Systems.ReplicationSystem;
 import Server.Systems.WordSystem;
+import Server.Utils.CommandInbox;
+import Server.Utils.KeystrokeAnalyzer;
+import Server.Utils.MatchRecorder;
+import Server.Utils.MatchScheduler;
+import Server.Utils.MatchScheduler.ScheduledMatch;
+import Server.Utils.OutboundBatcher;
 import Server.Utils.PlayerState;
+import Server.Utils.ServerLog;
+import Server.Utils.StateTimerWheel;
 
-public class ServerGameWorld{
+public class ServerGameWorld implements CommandInbox.Handler{
 
+	private int id;
+	
 	private Server server;
+	private MatchRouter router;
+	private MatchRegistry registry;
+	private LatencyService latency;
 	
 	private Engine engine;
-	private ComponentMapper<IdComponent> im = ComponentMapper.getFor(IdComponent.class);
 	private ComponentMapper<EnergyComponent> em = ComponentMapper.getFor(EnergyComponent.class);
 	private ComponentMapper<HealthComponent> hm = ComponentMapper.getFor(HealthComponent.class);
 	private ComponentMapper<StateComponent> sm = ComponentMapper.getFor(StateComponent.class);
+	private ComponentMapper<WordComponent> wm = ComponentMapper.getFor(WordComponent.class);
 	
 	private WordSystem wordSystem;
 	private MoveSystem moveSystem;
-	private KnockoutSystem koSystem;
-	private Timer update;
-	private final long TIME_STEP = 100; //Determines how often to fire the timer task in ms
+	private KnockoutSystem koSystem; //The running knockout, null between knockouts
+	private KnockoutSystem knockout; //Restarted for every knockout of the match
+	private ReplicationSystem replication;
+	private MatchScheduler scheduler;
+	private ScheduledMatch update;
+	private long timeStep;
+	private StateTimerWheel stateTimers;
+	private CommandInbox inbox;
+	private OutboundBatcher outbound;
 	
 	private ServerPlayer[] players;
+	private KeystrokeAnalyzer[] keystrokes;
 	private boolean completed;
+	private boolean completing;
 	private String winnerName;
 	
 	private int startRequests = 0;
 	
-	private Stack<Listener> listeners;
+	private long ticks;
+	private long[] disconnectDeadlines;
+	private long disconnectGrace; //How long a disconnected player has to resume before their opponent is awarded the win in ms
+	private boolean paused; //The match is frozen while a player is disconnected
+	
+	private long seed; //Seeds the generators the words are drawn from
+	private MatchRecorder recorder; //Only used from the match's shard
+	
+	
+	/**
+	 * @param disconnectGrace how long a disconnected player has to resume their session in ms
+	 * @param recordings directory every command of the match is recorded to, null to not record the match
+	 */
+	public ServerGameWorld(int id, ServerPlayer[] matchPlayers, Server server, MatchScheduler scheduler, MatchRouter router, MatchRegistry registry, LatencyService latency, long disconnectGrace, File recordings) {
+		
+		this(id, matchPlayers, server, scheduler, scheduler.getTimeStep(), router, registry, latency, disconnectGrace, new Random().nextLong(), recordings);
+	}
 	
+	/**
+	 * Creates a match that is not ticked by a scheduler, the owner calls tick itself. Used by MatchReplay
+	 * @param timeStep in ms
+	 * @param seed the seed the players' words are drawn from
+	 */
+	ServerGameWorld(int id, ServerPlayer[] matchPlayers, Server server, long timeStep, MatchRouter router, MatchRegistry registry, LatencyService latency, long disconnectGrace, long seed) {
+		this(id, matchPlayers, server, null, timeStep, router, registry, latency, disconnectGrace, seed, null);
+	}
 	
-	public ServerGameWorld(int id, ServerPlayer[] matchPlayers, Server server) {
+	private ServerGameWorld(int id, ServerPlayer[] matchPlayers, Server server, MatchScheduler scheduler, long timeStep, MatchRouter router, MatchRegistry registry, LatencyService latency, long disconnectGrace, long seed, File recordings) {
 		
-		//Gdx.app.log("Server Game World", "Game World Created");
+		//ServerLog.log("Server Game World", "Game World Created");
 		
 		engine = new Engine();
+		this.id = id;
 		this.server = server;
+		this.timeStep = timeStep;
+		this.router = router;
+		this.registry = registry;
+		this.latency = latency;
+		this.disconnectGrace = disconnectGrace;
+		this.seed = seed;
 		
-		listeners = new Stack<Listener>();
-		
-		//Ready Listeners
-		listeners.push( new Listener(){
-		
-			public void received(Connection connection, Object object) {
-				if(object instanceof StartMatchRequest){
-					startGame();
-				}
-			}
-		
-		});
-		server.addListener(listeners.peek());
+		inbox = new CommandInbox();
+		ticks = 0;
 		
 		//Entities
 		players = matchPlayers;
-		for(ServerPlayer player : matchPlayers){
-			engine.addEntity(player);
+		disconnectDeadlines = new long[players.length];
+		keystrokes = new KeystrokeAnalyzer[players.length];
+		for(int i = 0; i < players.length; ++i){
+			keystrokes[i] = new KeystrokeAnalyzer();
+			players[i].setSlot(i);
+			engine.addEntity(players[i]);
+			disconnectDeadlines[i] = -1;
 		}
 	
 		completed = false;
+		completing = false;
+		paused = false;
+		
+		//Every player draws their words from their own generator so a replay draws the same words however far ahead they were sent
+		Random seeds = new Random(seed);
+		for(ServerPlayer player : players){
+			wm.get(player).random.setSeed(seeds.nextLong());
+		}
+		Random knockoutWords = new Random(seeds.nextLong());
 		
 		//Systems
-		wordSystem = new WordSystem(server);
-		moveSystem = new MoveSystem(server);
-
+		stateTimers = new StateTimerWheel(timeStep);
+		outbound = new OutboundBatcher(server, players);
+		wordSystem = new WordSystem(outbound, latency);
+		replication = new ReplicationSystem(outbound, players);
+		moveSystem = new MoveSystem(players, stateTimers, replication, latency);
+		knockout = new KnockoutSystem(outbound, replication, knockoutWords);
 		
 		engine.addSystem(wordSystem);
 		engine.addSystem(moveSystem);
 		
+		if(recordings != null){
+			recorder = MatchRecorder.open(recordings, id, seed, timeStep, disconnectGrace, players);
+		}
+		
 		//Update Settings
-		update = new Timer();
-		update.scheduleAtFixedRate(new TimerTask(){
+		if(scheduler != null){
+			this.scheduler = scheduler;
+			update = scheduler.register(this);
+		}
+		
+		//Only published once it is fully built, a disconnect can be routed to the match from here on
+		registry.add(this);
+		
+		for(ServerPlayer player : players){
+			router.register(player.getID(), this);
+		}
+		
+	}
+	
+	/**
+	 * Called by the MatchScheduler once every time step
+	 * @param delta
+	 */
+	public void tick(float delta){
+		
+		if(completed){
+			return;
+		}
+		
+		++ticks;
+		checkDisconnects();
+		
+		if(!completed){
+			inbox.drain(this);
+			
+			//Nothing moves on while a player is away so they resume exactly where they left off
+			if(!paused){
+				stateTimers.advance();
+				update(delta);
+				checkKnockouts();
+			}
+			
+			if(!completed){
+				replication.flush();
+			}
+		}
+		
+		//Everything sent this tick goes out in one write per player
+		outbound.flush();
+		
+	}
+	
+	/**
+	 * Called by the MatchRouter on the network thread for messages sent by one of this match's players.
+	 * The message is only queued, it is applied on the next tick
+	 * @param connection
+	 * @param object
+	 */
+	public void received(Connection connection, Object object){
+		
+		if(object instanceof MoveRequest){
+			((MoveRequest)object).received = System.currentTimeMillis();
+		}
+		
+		if(object instanceof MoveRequest || object instanceof WordSubmissionRequest || object instanceof KeystrokeRequest || object instanceof StartMatchRequest){
+			
+			if(!inbox.offer(connection.getID(), object)){
+				ServerLog.log("Server Game World", "Inbox full, dropping " + object.getClass().getSimpleName());
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Called by the MatchRouter on the network thread when one of this match's players disconnects.
+	 * The disconnect is applied on the match's shard between ticks
+	 * @param id
+	 */
+	public void disconnected(final int id){
+		
+		scheduler.execute(update, new Runnable(){
 			
 			@Override
 			public void run() {
-				checkDisconnects();
-				update((float)TIME_STEP/1000f);
-				checkKnockouts();
+				playerDisconnected(id);
+			}
+			
+		});
+		
+	}
+	
+	private void playerDisconnected(int id){
+		
+		if(completed){
+			return;
+		}
+		
+		for(int i = 0; i < players.length; ++i){
+			
+			if(players[i].getID() == id && disconnectDeadlines[i] < 0){
+				ServerLog.log("Server Game World", players[i].getName() + " disconnected");
+				disconnectDeadlines[i] = ticks + disconnectGrace / timeStep;
+				paused = true;
+				
+				if(recorder != null){
+					recorder.disconnected(ticks, i);
+				}
+				
+				if(!completing){
+					completing = true;
+					registry.completing(this);
+				}
+				
+				sendPause();
 			}
 			
-		}, TIME_STEP, TIME_STEP);
+		}
+		
+	}
+	
+	/**
+	 * Called by the lobby on the network thread when a disconnected player of this match resumes their session
+	 * on a new connection. The player is handed back to the match on its shard between ticks
+	 * @param player
+	 * @param oldID the id of the player's dropped connection
+	 * @param connection
+	 * @param listener told on the shard whether the match took the player back
+	 */
+	public void resume(final ServerPlayer player, final int oldID, final Connection connection, final ResumeListener listener){
+		
+		scheduler.execute(update, new Runnable(){
+			
+			@Override
+			public void run() {
+				playerResumed(player, oldID, connection, listener);
+			}
+			
+		});
+		
+	}
+	
+	private void playerResumed(ServerPlayer player, int oldID, Connection connection, ResumeListener listener){
+		
+		int slot = getSlot(oldID);
+		
+		if(completed || slot < 0){
+			if(listener != null){
+				listener.rejected();
+			}
+			return;
+		}
+		
+		ServerLog.log("Server Game World", player.getName() + " resumed");
+		
+		if(recorder != null){
+			recorder.resumed(ticks, slot);
+		}
+		
+		router.unregister(oldID, this);
+		player.rebind(connection);
+		router.register(player.getID(), this);
+		
+		disconnectDeadlines[slot] = -1;
+		
+		paused = false;
+		for(int i = 0; i < players.length; ++i){
+			if(disconnectDeadlines[i] >= 0){
+				paused = true;
+			}
+		}
+		
+		if(!paused && completing){
+			completing = false;
+			registry.completingEnded(this);
+		}
+		
+		//The response has to arrive before the state it is resynced with
+		connection.sendTCP(new ResumeResponse(true, true));
+		
+		//Words the opponent typed while paused were dropped as well, so both queues are resent
+		for(int i = 0; i < players.length; ++i){
+			replication.resync(i);
+			wordSystem.resync(players[i]);
+		}
+		
+		if(koSystem != null){
+			replication.setKnockout(koSystem.getPlayer().getSlot(), true);
+			koSystem.resync();
+		}
+		
+		sendPause();
+		
+		if(listener != null){
+			listener.resumed();
+		}
+		
+	}
+	
+	/**
+	 * Tells every player whether the match is paused and who it is waiting for
+	 */
+	private void sendPause(){
+		
+		String waitingFor = null;
+		for(int i = 0; i < players.length; ++i){
+			if(disconnectDeadlines[i] >= 0){
+				waitingFor = players[i].getName();
+			}
+		}
+		
+		outbound.sendToAll(new PauseResponse(paused, waitingFor));
+	}
+	
+	/**
+	 * Applies a queued command on the tick thread
+	 */
+	@Override
+	public void handle(int sender, Object command){
+		
+		int slot = getSlot(sender);
+		
+		if(slot < 0){
+			return;
+		}
 		
+		//Narrowed before it is recorded, a replay has no latency measurements to narrow it with
+		if(command instanceof MoveRequest){
+			moveSystem.compensate(slot, (MoveRequest)command);
+		}
 		
+		if(recorder != null){
+			recorder.command(ticks, slot, command);
+		}
+		
+		if(command instanceof MoveRequest){
+			
+			MoveRequest r = (MoveRequest)command;
+			
+			replication.setAck(slot, r.sequence);
+			
+			//Dropped moves are reported so the client undoes any prediction of them
+			if(koSystem == null && !paused){
+				moveSystem.addMove(slot, r);
+			}else{
+				replication.setRejected(slot, r.sequence);
+			}
+			
+		}else if(command instanceof WordSubmissionRequest){
+			
+			WordSubmissionRequest r = (WordSubmissionRequest)command;
+			
+			//Clients send the word's keystrokes ahead of the word itself
+			if(!keystrokes[slot].checkWord(r.word)){
+				ServerLog.log("Server Game World", players[slot].getName() + " submitted a word they did not type");
+			}
+			
+			//Words sent while paused are dropped, the word queue is resent when the match resumes
+			if(!paused){
+				if(koSystem == null){
+					wordSystem.processWord(sender, r);
+				}else if(koSystem.getPlayer().getID() == sender){
+					koSystem.processWord(sender, r);
+				}
+			}
+			
+			replication.setAck(slot, r.sequence);
+			
+		}else if(command instanceof KeystrokeRequest){
+			
+			KeystrokeRequest r = (KeystrokeRequest)command;
+			
+			if(r.data != null){
+				KeystrokeCodec.decode(r.data, keystrokes[slot]);
+			}
+			
+		}else if(command instanceof StartMatchRequest){
+			startGame();
+		}
 		
 	}
 	
+	/**
+	 * Finds the slot of the player with the connection id
+	 * @param id
+	 * @return the slot or -1 if the connection is not part of this match
+	 */
+	private int getSlot(int id){
+		
+		for(int i = 0; i < players.length; ++i){
+			if(players[i].getID() == id){
+				return i;
+			}
+		}
+		
+		return -1;
+	}
+	
 	private void startGame(){
 		
 		++startRequests;
@@ -118,15 +458,20 @@ public class ServerGameWorld{
 	
 	private void signalGameStart(){
 		
-		Gdx.app.log("ServerGameWorld", "Signalling game start");
+		ServerLog.log("ServerGameWorld", "Signalling game start");
 		
 		for(ServerPlayer player : players){
-			server.sendToTCP(player.getID(), new WordSubmissionResponse(true, "First"));
+			wordSystem.resync(player);
 		}
 	}
 	
 	private void checkKnockouts() {
 		
+		//Also called after the update that may have ended the match
+		if(completed){
+			return;
+		}
+		
 		if(koSystem == null){
 			
 			for(ServerPlayer p : players) {
@@ -135,17 +480,16 @@ public class ServerGameWorld{
 				
 				if(sc.state == PlayerState.KNOCKED_OUT) {
 					
-					//Gdx.app.log("Server Game World", p.getName() + " Knocked out");
+					//ServerLog.log("Server Game World", p.getName() + " Knocked out");
 					
-					koSystem = new KnockoutSystem(server, p);
+					koSystem = knockout;
+					koSystem.start(p);
 					engine.addSystem(koSystem);
+					registry.knockoutStarted(this);
 					
 					engine.removeSystem(moveSystem);
 					engine.removeSystem(wordSystem);
 					
-					moveSystem.dispose();
-					wordSystem.dispose();
-					
 					break;
 				}else{
 					winnerName = p.getName();
@@ -157,11 +501,9 @@ public class ServerGameWorld{
 			
 		}else if(koSystem.knockedOut()){
 			
-			//Gdx.app.log("Server Game World", "Knocked Out, Sending GameOver Request");
+			//ServerLog.log("Server Game World", "Knocked Out, Sending GameOver Request");
 			
-			for(ServerPlayer player : players){
-				server.sendToTCP(player.getID(), new GameOverResponse(winnerName));
-			}
+			outbound.sendToAll(new GameOverResponse(winnerName));
 			
 			completed = true;
 			
@@ -169,34 +511,31 @@ public class ServerGameWorld{
 		
 		}else if(koSystem.hasCompleted()){
 			
-			wordSystem = new WordSystem(server);
-			moveSystem = new MoveSystem(server);
-			
-			HealthComponent hc = hm.get(koSystem.getPlayer());
-			StateComponent sc = sm.get(koSystem.getPlayer());
+			ServerPlayer koPlayer = koSystem.getPlayer();
+			HealthComponent hc = hm.get(koPlayer);
+			StateComponent sc = sm.get(koPlayer);
 			
 			hc.health = hc.maxHealth;
+			hc.dirty = true;
 			++hc.knockouts;
 			
 			sc.state = PlayerState.OPEN;
 			
 			engine.removeSystem(koSystem);
 			koSystem = null;
+			registry.knockoutEnded(this);
 			
 			engine.addSystem(wordSystem);
 			engine.addSystem(moveSystem);
 			
 			
-			//End KO
-			server.sendToTCP(players[0].getID(), new KOResponse(players[0].getName(), false));
-			server.sendToTCP(players[1].getID(), new KOResponse(players[1].getName(), false));
-			
-			//Update Stats
-			server.sendToTCP(players[0].getID(), new KOResponse(players[0].getName(), false));
-			server.sendToTCP(players[1].getID(), new KOResponse(players[1].getName(), false));
+			//End KO, replicated with the restored stats at the end of the tick
+			replication.setKnockout(koPlayer.getSlot(), false);
 			
-			sendStats(players[0]);
-			sendStats(players[1]);
+			for(ServerPlayer player : players){
+				em.get(player).dirty = true;
+				wordSystem.resync(player);
+			}
 		}
 		
 	}
@@ -212,66 +551,183 @@ public class ServerGameWorld{
 		return completed;
 	}
 	
-	
-	private void sendStats(Entity player){
-		
-		HealthComponent hc = hm.get(player);
-		EnergyComponent ec = em.get(player);
-		IdComponent ic = im.get(player);
+	/**
+	 * Ends the match on its shard without a result, e.g. when a player dropped while it was being made
+	 * @param then run on the shard once the players have been released
+	 */
+	public void cancel(final Runnable then){
 		
-		server.sendToTCP(ic.id, new StatResponse(hc.health, ec.energy));
+		scheduler.execute(update, new Runnable(){
+			
+			@Override
+			public void run() {
+				if(!completed){
+					completed = true;
+					dispose();
+				}
+				then.run();
+			}
+			
+		});
 		
 	}
 	
+	public long getTicks(){
+		return ticks;
+	}
 	
-	private void checkDisconnects() {
+	/**
+	 * Closes the match's recording on its shard, e.g. when the server shuts down while the match is running
+	 */
+	public void closeRecording(){
 		
-		ServerPlayer prev = players[1];
+		if(scheduler == null){
+			return;
+		}
 		
-		for(ServerPlayer player : players){
+		scheduler.execute(update, new Runnable(){
 			
-			IdComponent ic = im.get(player);
-			boolean connected = false;
-			
-			for(Connection c : server.getConnections()){
-				int id = c.getID();
-				if(id == ic.id){
-					connected = true;
+			@Override
+			public void run() {
+				if(recorder != null){
+					recorder.close();
+					recorder = null;
 				}
 			}
 			
-			if(!connected){
-				Gdx.app.log("Server Game World", ic.name + " disconnected");
-				ic = im.get(prev);
-				server.sendToTCP(prev.getID(), new GameOverResponse(ic.name));
+		});
+		
+	}
+	
+	private void recordEnd(){
+		
+		int[] health = new int[players.length];
+		int[] energy = new int[players.length];
+		int[] knockouts = new int[players.length];
+		
+		for(int i = 0; i < players.length; ++i){
+			health[i] = hm.get(players[i]).health;
+			energy[i] = em.get(players[i]).energy;
+			knockouts[i] = hm.get(players[i]).knockouts;
+		}
+		
+		recorder.end(ticks, health, energy, knockouts);
+		recorder = null;
+	}
+	
+	/**
+	 * Queues a recorded command as if the player in the slot had sent it. Used by MatchReplay between ticks
+	 * @param slot
+	 * @param command
+	 */
+	void replayCommand(int slot, Object command){
+		inbox.offer(players[slot].getID(), command);
+	}
+	
+	void replayDisconnect(int slot){
+		playerDisconnected(players[slot].getID());
+	}
+	
+	void replayResume(int slot, Connection connection){
+		playerResumed(players[slot], players[slot].getID(), connection, null);
+	}
+	
+	public int getID(){
+		return id;
+	}
+	
+	
+	private void checkDisconnects() {
+		
+		for(int i = 0; i < players.length; ++i){
+			
+			if(disconnectDeadlines[i] >= 0 && ticks >= disconnectDeadlines[i]){
+				
+				//Awards the win to the other player if they are still connected
+				for(int j = 0; j < players.length; ++j){
+					if(j != i && disconnectDeadlines[j] < 0){
+						outbound.send(players[j].getID(), new GameOverResponse(players[j].getName()));
+					}
+				}
+				
 				completed = true;
 				dispose();
 				break;
 			}
 			
-			prev = player;
 		}
 		
 	}
 	
 	
-	public void dispose(){
+	/**
+	 * Logs every player's typing over the match, flagging players whose keys came in faster than a person types
+	 */
+	private void logTypingStats(){
 		
-		update.cancel();
+		for(int i = 0; i < players.length; ++i){
+			
+			KeystrokeAnalyzer k = keystrokes[i];
+			
+			if(k.getKeys() == 0){
+				continue;
+			}
+			
+			ServerLog.log("Server Game World", players[i].getName() + " typed " + k.getKeys() + " keys"
+					+ " wpm=" + Math.round(k.getWPM())
+					+ " accuracy=" + Math.round(k.getAccuracy() * 100) + "%"
+					+ " interval=" + Math.round(k.getMeanInterval()) + "+-" + Math.round(k.getIntervalDeviation()) + "ms"
+					+ (k.getInhumanIntervals() > 0 || k.getFlaggedWords() > 0
+							? " SUSPICIOUS inhumanIntervals=" + k.getInhumanIntervals() + " untypedWords=" + k.getFlaggedWords() : ""));
+		}
+		
+	}
+	
+	public void dispose(){
 		
-		while(!listeners.isEmpty()){
-			server.removeListener(listeners.pop());
+		if(scheduler != null){
+			scheduler.deregister(update);
 		}
 		
-		if(koSystem != null){
-			koSystem.dispose();
+		if(recorder != null){
+			recordEnd();
 		}
 		
+		logTypingStats();
+		
 		for(ServerPlayer player : players){
+			router.unregister(player.getID(), this);
 			player.reset();
 		}
 		
 		engine.removeAllEntities();
+		
+		if(koSystem != null){
+			registry.knockoutEnded(this);
+		}
+		
+		if(completing){
+			registry.completingEnded(this);
+		}
+		
+		registry.completed(this);
+	}
+	
+	/**
+	 * Told on the match's shard whether a resuming player was taken back into the match
+	 */
+	public interface ResumeListener {
+		
+		/**
+		 * The player is on their new connection and has been sent the match's state
+		 */
+		public void resumed();
+		
+		/**
+		 * The match completed before the player got back to it, or they were not part of it
+		 */
+		public void rejected();
+		
 	}
 
 }
@@ -1,39 +1,67 @@
 package Server.World;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.io.File;
 import java.util.Stack;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.badlogic.gdx.Gdx;
 import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.Listener;
 import com.esotericsoftware.kryonet.Server;
 
 import Client.Requests.ReadyRequest;
+import Client.Requests.ResumeRequest;
 import Server.Enities.ServerPlayer;
 import Server.Listeners.JoinRequestListener;
+import Server.Listeners.LatencyService;
+import Server.Listeners.MatchRouter;
 import Server.Listeners.MessageRequestListener;
 import Server.Responses.MessageResponse;
+import Server.Responses.ResumeResponse;
 import Server.Responses.StartResponse;
+import Server.Utils.MatchScheduler;
+import Server.Utils.MatchmakingQueue;
+import Server.Utils.ServerLog;
 
-public class ServerLobbyWorld {
+public class ServerLobbyWorld implements MatchmakingQueue.Listener {
 	
 	private Server server;
-	private HashMap<Integer, ServerPlayer> players;
+	private MatchScheduler scheduler;
+	private MatchRouter router;
+	private ConcurrentHashMap<Integer, ServerPlayer> players; //Rekeyed by a match's shard when it takes a resuming player back
 	
-	private LinkedList<ServerGameWorld> games;
+	private MatchRegistry registry;
+	private LatencyService latency;
+	private SessionRegistry sessions;
+	private File recordings;
+	
+	private MatchmakingQueue queue;
 	private Timer timer;
+	private final long PAIRING_INTERVAL = 250; //How often waiting players are paired in ms
+	
+	//Players are paired with others of similar round trip time first, widening every few seconds
+	private final int LATENCY_BUCKETS = 8;
+	private final int LATENCY_BUCKET_WIDTH = 50;
+	private final long LATENCY_WIDEN_INTERVAL = 5000;
 	
 	private Stack<Listener> listeners;
 	
-	public ServerLobbyWorld(Server server) {
+	/**
+	 * @param recordings directory the matches are recorded to, null to not record them
+	 */
+	public ServerLobbyWorld(Server server, MatchScheduler scheduler, MatchRouter router, MatchRegistry registry, LatencyService latency, final SessionRegistry sessions, File recordings) {
 		
 		this.server = server;
+		this.scheduler = scheduler;
+		this.router = router;
+		this.registry = registry;
+		this.latency = latency;
+		this.sessions = sessions;
+		this.recordings = recordings;
 		
-		players = new HashMap<Integer, ServerPlayer>();
-		games = new LinkedList<ServerGameWorld>();
+		players = new ConcurrentHashMap<Integer, ServerPlayer>();
+		queue = new MatchmakingQueue(LATENCY_BUCKETS, LATENCY_BUCKET_WIDTH, LATENCY_WIDEN_INTERVAL);
 		listeners = new Stack<Listener>();
 		
 		//Message Listener
@@ -41,7 +69,7 @@ public class ServerLobbyWorld {
 		server.addListener(listeners.peek());
 		
 		//Join Listener
-		listeners.push(new JoinRequestListener(players, server));
+		listeners.push(new JoinRequestListener(players, server, sessions));
 		server.addListener(listeners.peek());
 		
 		//Ready Listener
@@ -51,13 +79,28 @@ public class ServerLobbyWorld {
 			public void received(Connection connection, Object object) {
 				
 				if(object instanceof ReadyRequest){
-								
-					players.get(connection.getID()).setReady(!players.get(connection.getID()).isReady());
 					
-					if(players.get(connection.getID()).isReady()){
-						startGame(connection);
+					ServerPlayer player = players.get(connection.getID());
+					
+					if(player != null){
+						setReady(player, !player.isReady());
 					}
 					
+				}else if(object instanceof ResumeRequest){
+					resume(connection, (ResumeRequest)object);
+				}
+				
+			}
+			
+			@Override
+			public void disconnected(Connection connection) {
+				
+				sessions.disconnected(connection.getID());
+				
+				ServerPlayer player = players.remove(connection.getID());
+				
+				if(player != null){
+					queue.dequeue(player);
 				}
 				
 			}
@@ -65,76 +108,145 @@ public class ServerLobbyWorld {
 		});
 		server.addListener(listeners.peek());
 		
-		timer = new Timer();
-		timer.schedule(new TimerTask(){
+		//Pairing passes
+		timer = new Timer(true);
+		timer.scheduleAtFixedRate(new TimerTask(){
 			
 			@Override
 			public void run() {
-				checkConnections();
+				
+				//An exception escaping the task would kill the timer's thread and with it matchmaking
+				try {
+					queue.pair(System.currentTimeMillis(), ServerLobbyWorld.this);
+				} catch (RuntimeException e) {
+					ServerLog.log("Server Lobby World", "Pairing pass failed: " + e);
+				}
 				
 			}
 			
-		}, 10000);
+		}, PAIRING_INTERVAL, PAIRING_INTERVAL);
 	
-		Gdx.app.log("Server Lobby World", "Lobby Created");
+		ServerLog.log("Server Lobby World", "Lobby Created");
 	}
 	
-	private void checkConnections(){
+	private void setReady(ServerPlayer player, boolean ready){
 		
-		for(Connection c : server.getConnections()){
-			
-			boolean connected = false;
-			
-			for(int key : players.keySet()){
-				if(key == c.getID()){
-					connected = true;
-				}
-			}
-			
-			if(!connected){
-				players.remove(c.getID());
-			}
+		player.setReady(ready);
+		
+		if(ready){
+			server.sendToAllTCP(new MessageResponse(player.getName(), "I'm ready"));
+			queue.enqueue(player, latency.getRoundTrip(player.getID()), System.currentTimeMillis());
+		}else{
+			queue.dequeue(player);
 		}
 		
 	}
 	
-	private void startGame(Connection connection){
+	/**
+	 * Re-attaches a reconnected client to its player, handing it back to its match if it is still running
+	 * @param connection
+	 * @param r
+	 */
+	private void resume(final Connection connection, ResumeRequest r){
 		
-		ServerPlayer player = players.get(connection.getID());
+		final ServerPlayer player = sessions.resume(r.token, connection);
 		
-		server.sendToAllTCP(new MessageResponse(player.getName(), "I'm ready"));
+		if(player == null){
+			connection.sendTCP(new ResumeResponse(false, false));
+			return;
+		}
 		
-		//Check for games to start
-		for(int key : players.keySet()){
-			
-			ServerPlayer other = players.get(key);
+		ServerLog.log("Server Lobby World", player.getName() + " resumed their session");
+		
+		final int oldID = player.getID();
+		ServerGameWorld world = router.getMatch(oldID);
+		
+		if(world != null){
 			
-			if(other.isReady() && !other.equals(player)){
-				
-				ServerPlayer[] matchPlayers = {player, other};
+			//The lobby only follows the player to the new connection once the match has taken them back
+			world.resume(player, oldID, connection, new ServerGameWorld.ResumeListener(){
 				
-				player.setReady(false);
-				other.setReady(false);
-				
-				games.add(new ServerGameWorld(games.size(), matchPlayers, server));
+				@Override
+				public void resumed() {
+					players.remove(oldID);
+					players.put(connection.getID(), player);
+				}
 				
-				server.sendToTCP(connection.getID(), new StartResponse(other.getName()));
-				server.sendToTCP(key, new StartResponse(player.getName()));
+				@Override
+				public void rejected() {
+					//The match ended before the player got back to it
+					resumeInLobby(player, oldID, connection);
+				}
 				
-			}
+			});
 			
+		}else{
+			resumeInLobby(player, oldID, connection);
 		}
 		
-		//Check for games to remove
-		for(int i = 0; i < games.size(); ++i){
+	}
+	
+	/**
+	 * Moves a resumed player that is not in a match onto the new connection, they have to ready up again
+	 * @param player
+	 * @param oldID
+	 * @param connection
+	 */
+	private void resumeInLobby(ServerPlayer player, int oldID, Connection connection){
+		
+		queue.dequeue(player);
+		player.setReady(false);
+		player.rebind(connection);
+		
+		players.remove(oldID);
+		players.put(connection.getID(), player);
+		
+		connection.sendTCP(new ResumeResponse(true, false));
+	}
+	
+	/**
+	 * Called by the matchmaking queue during a pairing pass
+	 */
+	@Override
+	public void matched(ServerPlayer first, ServerPlayer second){
+		
+		ServerPlayer[] matchPlayers = {first, second};
+		
+		first.setReady(false);
+		second.setReady(false);
+		
+		ServerGameWorld world = new ServerGameWorld(registry.nextMatchID(), matchPlayers, server, scheduler, router, registry, latency, sessions.getGracePeriod(), recordings);
+		
+		//Pairing runs on the lobby's timer, a player that dropped during the pass was gone before the router knew about the match
+		if(!isConnected(first) || !isConnected(second)){
 			
-			if(games.get(i).isCompleted()){
-				games.remove(i);
-				--i;
-			}
+			final ServerPlayer[] cancelled = matchPlayers;
+			
+			//The player still connected goes back in the queue once the match has let go of them
+			world.cancel(new Runnable(){
+				
+				@Override
+				public void run() {
+					for(ServerPlayer player : cancelled){
+						if(isConnected(player)){
+							player.setReady(true);
+							queue.enqueue(player, latency.getRoundTrip(player.getID()), System.currentTimeMillis());
+						}
+					}
+				}
+				
+			});
 			
+			return;
 		}
 		
+		server.sendToTCP(first.getID(), new StartResponse(second.getName(), first.getSlot(), second.getSlot()));
+		server.sendToTCP(second.getID(), new StartResponse(first.getName(), second.getSlot(), first.getSlot()));
+		
+	}
+	
+	private boolean isConnected(ServerPlayer player){
+		return player.getConnection() != null && player.getConnection().isConnected();
 	}
 	
 	public void dispose() {
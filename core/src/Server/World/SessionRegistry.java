@@ -0,0 +1,135 @@
+package Server.World;
+
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.esotericsoftware.kryonet.Connection;
+
+import Server.Enities.ServerPlayer;
+
+/**
+ * Hands every player a resume token when they join. A client that loses its connection can reconnect and present
+ * the token within the grace period to take back its ServerPlayer, including its place in a running match.
+ */
+public class SessionRegistry {
+
+	public static final long DEFAULT_GRACE_PERIOD = 10000;
+	
+	private ConcurrentHashMap<Long, Session> sessions;
+	private ConcurrentHashMap<Integer, Session> connections;
+	private SecureRandom random;
+	
+	private final long gracePeriod;
+	
+	public SessionRegistry() {
+		this(DEFAULT_GRACE_PERIOD);
+	}
+	
+	/**
+	 * @param gracePeriod how long a disconnected player can resume their session for in ms
+	 */
+	public SessionRegistry(long gracePeriod) {
+		
+		this.gracePeriod = gracePeriod;
+		
+		sessions = new ConcurrentHashMap<Long, Session>();
+		connections = new ConcurrentHashMap<Integer, Session>();
+		random = new SecureRandom();
+	}
+	
+	/**
+	 * @param player
+	 * @return the player's resume token
+	 */
+	public long create(ServerPlayer player){
+		
+		purge(System.currentTimeMillis());
+		
+		long token;
+		do{
+			token = random.nextLong();
+		}while(token == 0 || sessions.containsKey(token));
+		
+		Session session = new Session(player);
+		sessions.put(token, session);
+		connections.put(player.getID(), session);
+		
+		return token;
+	}
+	
+	public void disconnected(int connectionID){
+		
+		Session session = connections.remove(connectionID);
+		
+		if(session != null){
+			session.disconnected = System.currentTimeMillis();
+		}
+		
+	}
+	
+	/**
+	 * Claims the session for the new connection. The player is not rebound, that is left to the owner of the player
+	 * @param token
+	 * @param connection
+	 * @return the session's player or null if the token is unknown or has expired
+	 */
+	public ServerPlayer resume(long token, Connection connection){
+		
+		Session session = sessions.get(token);
+		
+		if(session == null){
+			return null;
+		}
+		
+		synchronized(session){
+			
+			if(session.disconnected >= 0 && System.currentTimeMillis() - session.disconnected > gracePeriod){
+				sessions.remove(token, session);
+				return null;
+			}
+			
+			//The old connection may not have noticed it is gone yet, e.g. after switching networks
+			Connection old = session.player.getConnection();
+			if(old != null && old != connection && old.isConnected()){
+				connections.remove(old.getID(), session);
+				old.close();
+			}
+			
+			session.disconnected = -1;
+			connections.put(connection.getID(), session);
+		}
+		
+		return session.player;
+	}
+	
+	private void purge(long now){
+		
+		Iterator<Session> it = sessions.values().iterator();
+		
+		while(it.hasNext()){
+			Session session = it.next();
+			if(session.disconnected >= 0 && now - session.disconnected > gracePeriod){
+				it.remove();
+			}
+		}
+		
+	}
+	
+	public long getGracePeriod() {
+		return gracePeriod;
+	}
+	
+	private static class Session {
+		
+		private final ServerPlayer player;
+		private volatile long disconnected;
+		
+		private Session(ServerPlayer player) {
+			this.player = player;
+			disconnected = -1;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,335 @@
+package com.tdg.gdx.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import com.esotericsoftware.kryonet.Client;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+
+import Client.Requests.JoinRequest;
+import Client.Requests.MoveRequest;
+import Client.Requests.ReadyRequest;
+import Client.Requests.StartMatchRequest;
+import Client.Requests.WordSubmissionRequest;
+import Client.Utils.GameUtils;
+import Client.Utils.KeystrokeCodec;
+import Client.Utils.MoveType;
+import Server.Responses.BatchResponse;
+import Server.Responses.GameOverResponse;
+import Server.Responses.JoinResponse;
+import Server.Responses.SnapshotResponse;
+import Server.Responses.StartResponse;
+import Server.Responses.WordQueueResponse;
+import Server.Responses.WordSubmissionResponse;
+import Server.Utils.MoveInformation;
+
+/**
+ * A simulated player. Joins the lobby, readies up, then types its words at the configured speed and throws moves
+ * whenever it can pay for them, readying up again after every match. Messages arrive on the bot's KryoNet thread
+ * and tick is called from the load test's scheduler, the bot's state is guarded by its own lock
+ */
+public class Bot extends Listener {
+
+	private static final MoveType[] MOVES = {MoveType.JAB, MoveType.CROSS, MoveType.UPPERCUT, MoveType.HOOK, MoveType.BLOCK};
+	private static final long REQUEUE_DELAY = 500; //ms
+	
+	private Client client;
+	private String name;
+	private LoadTestConfig config;
+	private LoadStats stats;
+	private Random random;
+	
+	private boolean inMatch;
+	private int slot;
+	private boolean knockedOut;
+	private int koSlot;
+	private int energy;
+	private long requeueAt;
+	
+	//Typing
+	private ArrayDeque<String> words;
+	private String koWord;
+	private boolean awaitingKOWord;
+	private int typed;
+	private long nextKey;
+	private KeystrokeCodec keystrokes;
+	
+	private long nextMove;
+	private int sequence;
+	private ArrayDeque<long[]> pendingWords; //Sequence and send time in ns of every unacknowledged word
+	
+	public Bot(int index, LoadTestConfig config, LoadStats stats) {
+		
+		this.name = "bot" + index;
+		this.config = config;
+		this.stats = stats;
+		
+		random = new Random(index);
+		words = new ArrayDeque<String>();
+		keystrokes = new KeystrokeCodec();
+		pendingWords = new ArrayDeque<long[]>();
+		
+		client = new Client();
+		GameUtils.serializeKryoObjects(client.getKryo());
+		client.addListener(this);
+	}
+	
+	/**
+	 * Starts the bot's network thread and connects, blocks until connected
+	 * @return false if the connection failed
+	 */
+	public boolean connect(){
+		
+		//A small stack so thousands of bots fit in one process
+		Thread thread = new Thread(null, client, name, 256 * 1024);
+		thread.setDaemon(true);
+		thread.start();
+		
+		try {
+			client.connect(config.connectTimeout, config.host, config.tcpPort, config.udpPort);
+		} catch (IOException e) {
+			stats.connectFailures.incrementAndGet();
+			client.stop();
+			return false;
+		}
+		
+		stats.connected.incrementAndGet();
+		client.sendTCP(new JoinRequest(name));
+		return true;
+	}
+	
+	public void stop(){
+		client.stop();
+	}
+	
+	@Override
+	public void received(Connection connection, Object object) {
+		
+		stats.frames.incrementAndGet();
+		
+		if(object instanceof BatchResponse){
+			
+			BatchResponse batch = (BatchResponse)object;
+			for(int i = 0; i < batch.count; ++i){
+				handle(batch.messages[i]);
+			}
+			
+		}else{
+			handle(object);
+		}
+		
+	}
+	
+	private synchronized void handle(Object object){
+		
+		stats.messages.incrementAndGet();
+		
+		if(object instanceof JoinResponse){
+			
+			JoinResponse r = (JoinResponse)object;
+			
+			if(r.success && name.equals(r.name)){
+				stats.joined.incrementAndGet();
+				client.sendTCP(new ReadyRequest());
+			}
+			
+		}else if(object instanceof StartResponse){
+			
+			StartResponse r = (StartResponse)object;
+			
+			stats.matchesStarted.incrementAndGet();
+			
+			inMatch = true;
+			slot = r.slot;
+			knockedOut = false;
+			energy = 0;
+			words.clear();
+			koWord = null;
+			awaitingKOWord = false;
+			typed = 0;
+			nextMove = 0;
+			
+			client.sendTCP(new StartMatchRequest());
+			
+		}else if(object instanceof WordQueueResponse){
+			
+			WordQueueResponse r = (WordQueueResponse)object;
+			
+			if(r.reset){
+				words.clear();
+				typed = 0;
+			}
+			
+			for(int i = 0; i < r.count; ++i){
+				words.addLast(r.words[i]);
+			}
+			
+		}else if(object instanceof WordSubmissionResponse){
+			
+			//Only sent to the knocked out player
+			WordSubmissionResponse r = (WordSubmissionResponse)object;
+			
+			if(r.newWord != null){
+				koWord = r.newWord;
+				typed = 0;
+			}
+			awaitingKOWord = false;
+			
+		}else if(object instanceof SnapshotResponse){
+			
+			SnapshotResponse r = (SnapshotResponse)object;
+			
+			if(r.has(SnapshotResponse.ENERGY)){
+				energy = r.energy;
+			}
+			
+			if(r.has(SnapshotResponse.KNOCKOUT)){
+				knockedOut = r.koEnable;
+				koSlot = r.koSlot;
+				typed = 0;
+				
+				//The first knockout word is queued ahead of the snapshot starting the knockout
+				if(!knockedOut){
+					koWord = null;
+				}
+			}
+			
+			if(r.has(SnapshotResponse.ACK)){
+				acknowledge(r.ack);
+			}
+			
+		}else if(object instanceof GameOverResponse){
+			
+			stats.gamesOver.incrementAndGet();
+			
+			inMatch = false;
+			pendingWords.clear();
+			requeueAt = System.currentTimeMillis() + REQUEUE_DELAY;
+		}
+		
+	}
+	
+	/**
+	 * Every word up to the acknowledged command has been applied by the server
+	 * @param ack
+	 */
+	private void acknowledge(int ack){
+		
+		long now = System.nanoTime();
+		
+		while(!pendingWords.isEmpty() && pendingWords.peekFirst()[0] <= ack){
+			
+			long micros = (now - pendingWords.pollFirst()[1]) / 1000;
+			stats.wordLatency.record(micros);
+			stats.wordsAcked.incrementAndGet();
+		}
+		
+	}
+	
+	/**
+	 * Types and attacks, called every few ms
+	 * @param now in ms
+	 */
+	public synchronized void tick(long now){
+		
+		if(requeueAt > 0 && now >= requeueAt){
+			requeueAt = 0;
+			client.sendTCP(new ReadyRequest());
+		}
+		
+		if(!inMatch || !client.isConnected()){
+			return;
+		}
+		
+		type(now);
+		
+		if(!knockedOut && config.movesPerMinute > 0 && now >= nextMove){
+			
+			if(nextMove > 0){
+				attack();
+			}
+			
+			nextMove = now + jitter(60000 / config.movesPerMinute);
+		}
+		
+	}
+	
+	private void type(long now){
+		
+		String word;
+		
+		if(knockedOut){
+			//Only the knocked out player types during a knockout
+			word = koSlot == slot && !awaitingKOWord ? koWord : null;
+		}else{
+			word = words.peekFirst();
+		}
+		
+		if(word == null){
+			nextKey = now + getKeyInterval();
+			return;
+		}
+		
+		while(typed < word.length() && now >= nextKey){
+			keystrokes.record(word.charAt(typed), nextKey);
+			++typed;
+			nextKey += jitter(getKeyInterval());
+		}
+		
+		//Submits once the space after the word is due
+		if(typed == word.length() && now >= nextKey){
+			
+			client.sendTCP(keystrokes.flush());
+			
+			++sequence;
+			client.sendTCP(new WordSubmissionRequest(word, sequence));
+			pendingWords.addLast(new long[]{sequence, System.nanoTime()});
+			stats.wordsSent.incrementAndGet();
+			
+			if(knockedOut){
+				awaitingKOWord = true;
+			}else{
+				words.pollFirst();
+			}
+			
+			typed = 0;
+			nextKey = now + jitter(getKeyInterval());
+		}
+		
+	}
+	
+	private void attack(){
+		
+		MoveType move = MOVES[random.nextInt(MOVES.length)];
+		int cost = MoveInformation.getEnergyCost(move);
+		
+		if(energy < cost){
+			return;
+		}
+		
+		energy -= cost;
+		++sequence;
+		
+		client.sendTCP(new MoveRequest(move, sequence, 0));
+		stats.movesSent.incrementAndGet();
+	}
+	
+	/**
+	 * A word is five keys
+	 * @return ms between keys at the configured speed
+	 */
+	private long getKeyInterval(){
+		return Math.max(1, 60000 / (config.wpm * 5));
+	}
+	
+	/**
+	 * @param interval
+	 * @return the interval varied by up to a quarter either way
+	 */
+	private long jitter(long interval){
+		return Math.max(1, interval + (long)((random.nextDouble() - .5) * interval / 2));
+	}
+	
+}
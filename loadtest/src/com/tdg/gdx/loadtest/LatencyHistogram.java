@@ -0,0 +1,113 @@
+package com.tdg.gdx.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies in microseconds. Values below 1024 are counted exactly, larger values
+ * fall into log spaced buckets of 512 sub buckets each so every percentile is within 0.2% of the real value
+ */
+public class LatencyHistogram {
+
+	private static final int LINEAR = 1024;
+	private static final int SUB_BUCKETS = 512;
+	private static final int MAX_SHIFT = 40;
+	
+	private AtomicLongArray counts;
+	
+	public LatencyHistogram() {
+		counts = new AtomicLongArray(LINEAR + MAX_SHIFT * SUB_BUCKETS);
+	}
+	
+	/**
+	 * @param micros
+	 */
+	public void record(long micros){
+		counts.incrementAndGet(index(Math.max(0, micros)));
+	}
+	
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the latency in microseconds, 0 if nothing has been recorded
+	 */
+	public long getPercentile(double percentile){
+		
+		long total = getCount();
+		if(total == 0){
+			return 0;
+		}
+		
+		long target = Math.max(1, (long)Math.ceil(total * percentile / 100));
+		long seen = 0;
+		
+		for(int i = 0; i < counts.length(); ++i){
+			
+			seen += counts.get(i);
+			
+			if(seen >= target){
+				return value(i);
+			}
+			
+		}
+		
+		return value(counts.length() - 1);
+	}
+	
+	public long getCount(){
+		
+		long total = 0;
+		for(int i = 0; i < counts.length(); ++i){
+			total += counts.get(i);
+		}
+		
+		return total;
+	}
+	
+	/**
+	 * Moves every count into the other histogram and clears this one, values recorded while it runs end up in either
+	 * @param other
+	 */
+	public void drainTo(LatencyHistogram other){
+		
+		for(int i = 0; i < counts.length(); ++i){
+			
+			long count = counts.getAndSet(i, 0);
+			if(count != 0){
+				other.counts.addAndGet(i, count);
+			}
+			
+		}
+		
+	}
+	
+	private static int index(long value){
+		
+		if(value < LINEAR){
+			return (int)value;
+		}
+		
+		//Shifts the value down until it fits in 9 bits plus the leading one
+		int shift = 63 - Long.numberOfLeadingZeros(value) - 9;
+		if(shift > MAX_SHIFT){
+			return LINEAR + MAX_SHIFT * SUB_BUCKETS - 1;
+		}
+		
+		return LINEAR + (shift - 1) * SUB_BUCKETS + (int)((value >> shift) - SUB_BUCKETS);
+	}
+	
+	/**
+	 * @param index
+	 * @return the highest value counted in the bucket
+	 */
+	private static long value(int index){
+		
+		if(index < LINEAR){
+			return index;
+		}
+		
+		int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+		long sub = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+		
+		return ((sub + 1) << shift) - 1;
+	}
+	
+}
@@ -0,0 +1,24 @@
+package com.tdg.gdx.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters shared by every bot
+ */
+public class LoadStats {
+
+	public final AtomicLong connected = new AtomicLong();
+	public final AtomicLong connectFailures = new AtomicLong();
+	public final AtomicLong joined = new AtomicLong();
+	public final AtomicLong matchesStarted = new AtomicLong(); //Counted once per player
+	public final AtomicLong gamesOver = new AtomicLong(); //Counted once per player
+	public final AtomicLong wordsSent = new AtomicLong();
+	public final AtomicLong wordsAcked = new AtomicLong();
+	public final AtomicLong movesSent = new AtomicLong();
+	public final AtomicLong messages = new AtomicLong(); //Every message received after unpacking batches
+	public final AtomicLong frames = new AtomicLong(); //Every message received as sent on the wire
+	
+	public final LatencyHistogram wordLatency = new LatencyHistogram(); //Since the last report
+	public final LatencyHistogram totalWordLatency = new LatencyHistogram();
+	
+}
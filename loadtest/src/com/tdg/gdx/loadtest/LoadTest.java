@@ -0,0 +1,282 @@
+package com.tdg.gdx.loadtest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.esotericsoftware.minlog.Log;
+
+import Server.Utils.ServerConfig;
+import Server.Utils.ServerFiles;
+import Server.Utils.ServerLog;
+import Server.Utils.ServerManager;
+import Server.Utils.WordUtil;
+
+/**
+ * Stress tests a server with simulated players over loopback or the LAN and reports the throughput it sustained
+ * and the latency from a word being submitted to the server acknowledging it.
+ * Every bot holds two sockets when the server is embedded, raise the open file limit (ulimit -n) for large runs
+ */
+public class LoadTest {
+
+	private static final long TICK_INTERVAL = 10; //ms between bot updates
+	private static final int CONNECT_THREADS = 32;
+	
+	private LoadTestConfig config;
+	private LoadStats stats;
+	private ServerManager server;
+	
+	private List<Bot> bots;
+	private ScheduledExecutorService ticker;
+	private ExecutorService connector;
+	
+	private long start;
+	private long lastReport;
+	private long lastWordsAcked;
+	private long lastWordsSent;
+	private long lastMoves;
+	private long lastMessages;
+	private long lastFrames;
+	
+	public LoadTest(LoadTestConfig config) {
+		this.config = config;
+		stats = new LoadStats();
+		bots = new ArrayList<Bot>(config.bots);
+	}
+	
+	public void run() throws InterruptedException {
+		
+		if(config.embedded && !startServer()){
+			return;
+		}
+		
+		ticker = Executors.newScheduledThreadPool(config.tickThreads, daemon("loadtest-tick"));
+		connector = Executors.newFixedThreadPool(CONNECT_THREADS, daemon("loadtest-connect"));
+		
+		start = System.currentTimeMillis();
+		lastReport = start;
+		
+		//Each tick thread drives its own share of the bots
+		final List<List<Bot>> groups = new ArrayList<List<Bot>>();
+		for(int i = 0; i < config.tickThreads; ++i){
+			
+			final List<Bot> group = new ArrayList<Bot>();
+			groups.add(group);
+			
+			ticker.scheduleAtFixedRate(new Runnable(){
+				
+				@Override
+				public void run() {
+					
+					long now = System.currentTimeMillis();
+					
+					synchronized(group){
+						for(Bot bot : group){
+							bot.tick(now);
+						}
+					}
+					
+				}
+				
+			}, TICK_INTERVAL, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+		
+		//Ramps up at a fixed rate so the server's accept loop is not flooded
+		long rampInterval = Math.max(1, 1000000 / config.rampRate); //us
+		long next = System.nanoTime();
+		
+		for(int i = 0; i < config.bots; ++i){
+			
+			final Bot bot = new Bot(i, config, stats);
+			bots.add(bot);
+			
+			List<Bot> group = groups.get(i % groups.size());
+			synchronized(group){
+				group.add(bot);
+			}
+			
+			connector.execute(new Runnable(){
+				
+				@Override
+				public void run() {
+					bot.connect();
+				}
+				
+			});
+			
+			next += rampInterval * 1000;
+			long wait = next - System.nanoTime();
+			if(wait > 0){
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+			
+			reportIfDue();
+		}
+		
+		//The run is timed from when every bot has connected
+		connector.shutdown();
+		while(!connector.awaitTermination(100, TimeUnit.MILLISECONDS)){
+			reportIfDue();
+		}
+		
+		System.out.println(stats.connected.get() + " of " + config.bots + " bots connected, running for " + config.duration + "s");
+		
+		long end = System.currentTimeMillis() + config.duration * 1000L;
+		while(System.currentTimeMillis() < end){
+			Thread.sleep(100);
+			reportIfDue();
+		}
+		
+		report(true);
+		stop();
+	}
+	
+	private boolean startServer(){
+		
+		//The server's own logging would drown out the report
+		ServerLog.setLogger(new ServerLog.Logger(){
+			
+			@Override
+			public void log(String tag, String message) {}
+			
+		});
+		ServerFiles.setSource(new ServerFiles.Directory(new File(config.assets)));
+		
+		if(!WordUtil.initializeWords()){
+			System.err.println("Failed to read the word list from " + config.assets);
+			return false;
+		}
+		
+		server = new ServerManager(new ServerConfig(config.tcpPort, config.udpPort));
+		
+		if(!server.bind()){
+			System.err.println("Failed to bind ports " + config.tcpPort + " and " + config.udpPort);
+			server.dispose();
+			return false;
+		}
+		
+		return true;
+	}
+	
+	private void stop() throws InterruptedException {
+		
+		ticker.shutdownNow();
+		
+		for(Bot bot : bots){
+			bot.stop();
+		}
+		
+		if(server != null){
+			server.dispose();
+		}
+		
+	}
+	
+	private void reportIfDue(){
+		
+		if(System.currentTimeMillis() - lastReport >= config.reportInterval * 1000L){
+			report(false);
+		}
+		
+	}
+	
+	/**
+	 * Prints the rates since the last report and the word latency percentiles
+	 * @param total whether to print the latency over the whole run instead of the last interval
+	 */
+	private void report(boolean total){
+		
+		long now = System.currentTimeMillis();
+		float seconds = Math.max(1, now - lastReport) / 1000f;
+		lastReport = now;
+		
+		long wordsSent = stats.wordsSent.get();
+		long wordsAcked = stats.wordsAcked.get();
+		long moves = stats.movesSent.get();
+		long messages = stats.messages.get();
+		long frames = stats.frames.get();
+		
+		//The interval's latencies are folded into the run's once they have been reported
+		LatencyHistogram interval = new LatencyHistogram();
+		stats.wordLatency.drainTo(interval);
+		
+		StringBuilder line = new StringBuilder();
+		line.append(total ? "TOTAL " : "").append("t=").append((now - start) / 1000).append("s");
+		line.append(" bots=").append(stats.connected.get()).append('/').append(config.bots);
+		line.append(" failed=").append(stats.connectFailures.get());
+		line.append(" joined=").append(stats.joined.get());
+		line.append(" matches=").append(stats.matchesStarted.get() / 2);
+		line.append(" finished=").append(stats.gamesOver.get() / 2);
+		line.append(String.format(Locale.ROOT, " words/s=%.0f acked/s=%.0f moves/s=%.0f msgs/s=%.0f frames/s=%.0f",
+				(wordsSent - lastWordsSent) / seconds, (wordsAcked - lastWordsAcked) / seconds, (moves - lastMoves) / seconds,
+				(messages - lastMessages) / seconds, (frames - lastFrames) / seconds));
+		
+		LatencyHistogram latency = interval;
+		if(total){
+			interval.drainTo(stats.totalWordLatency);
+			latency = stats.totalWordLatency;
+		}
+		
+		line.append(String.format(Locale.ROOT, " wordLatency p50=%.1fms p99=%.1fms p999=%.1fms n=%d",
+				latency.getPercentile(50) / 1000f, latency.getPercentile(99) / 1000f, latency.getPercentile(99.9) / 1000f, latency.getCount()));
+		
+		if(!total){
+			interval.drainTo(stats.totalWordLatency);
+		}
+		
+		if(server != null){
+			line.append(" | server ").append(server.getMetrics().getReport());
+		}
+		
+		System.out.println(line);
+		
+		lastWordsSent = wordsSent;
+		lastWordsAcked = wordsAcked;
+		lastMoves = moves;
+		lastMessages = messages;
+		lastFrames = frames;
+	}
+	
+	private static ThreadFactory daemon(final String name){
+		
+		return new ThreadFactory(){
+			
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+			
+		};
+		
+	}
+	
+	public static void main(String[] args) throws InterruptedException {
+		
+		LoadTestConfig config;
+		
+		try {
+			config = LoadTestConfig.parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: [host=addr] [tcp=port] [udp=port] [bots=n] [rampRate=bots/s] [wpm=n] [movesPerMinute=n]"
+					+ " [duration=s] [reportInterval=s] [tickThreads=n] [connectTimeout=ms] [embedded=true] [assets=dir]");
+			System.exit(1);
+			return;
+		}
+		
+		//KryoNet logs every connection at info
+		Log.set(Log.LEVEL_WARN);
+		
+		new LoadTest(config).run();
+		System.exit(0);
+	}
+	
+}
@@ -0,0 +1,87 @@
+package com.tdg.gdx.loadtest;
+
+/**
+ * Settings for a load test run, read from key=value arguments
+ */
+public class LoadTestConfig {
+
+	public String host = "127.0.0.1";
+	public int tcpPort = 54555;
+	public int udpPort = 54777;
+	public int connectTimeout = 5000; //ms
+	
+	public int bots = 1000;
+	public int rampRate = 200; //Bots connected per second
+	public int wpm = 60;
+	public int movesPerMinute = 30;
+	
+	public int duration = 60; //s after every bot has connected
+	public int reportInterval = 5; //s
+	public int tickThreads = 2;
+	
+	public boolean embedded = false; //Runs the server in this process so its load can be reported
+	public String assets = "."; //Directory holding the Words folder for the embedded server
+	
+	/**
+	 * @param args
+	 * @return
+	 * @throws IllegalArgumentException if an argument is unknown or malformed
+	 */
+	public static LoadTestConfig parse(String[] args){
+		
+		LoadTestConfig config = new LoadTestConfig();
+		
+		for(String arg : args){
+			
+			int split = arg.indexOf('=');
+			if(split <= 0){
+				throw new IllegalArgumentException("Expected key=value but got " + arg);
+			}
+			
+			config.set(arg.substring(0, split), arg.substring(split + 1).trim());
+		}
+		
+		return config;
+	}
+	
+	private void set(String key, String value){
+		
+		try {
+			
+			if(key.equals("host")){
+				host = value;
+			}else if(key.equals("tcp")){
+				tcpPort = Integer.parseInt(value);
+			}else if(key.equals("udp")){
+				udpPort = Integer.parseInt(value);
+			}else if(key.equals("connectTimeout")){
+				connectTimeout = Integer.parseInt(value);
+			}else if(key.equals("bots")){
+				bots = Integer.parseInt(value);
+			}else if(key.equals("rampRate")){
+				rampRate = Math.max(1, Integer.parseInt(value));
+			}else if(key.equals("wpm")){
+				wpm = Math.max(1, Integer.parseInt(value));
+			}else if(key.equals("movesPerMinute")){
+				movesPerMinute = Integer.parseInt(value);
+			}else if(key.equals("duration")){
+				duration = Integer.parseInt(value);
+			}else if(key.equals("reportInterval")){
+				reportInterval = Math.max(1, Integer.parseInt(value));
+			}else if(key.equals("tickThreads")){
+				tickThreads = Math.max(1, Integer.parseInt(value));
+			}else if(key.equals("embedded")){
+				embedded = Boolean.parseBoolean(value);
+			}else if(key.equals("assets")){
+				assets = value;
+			}else{
+				throw new IllegalArgumentException("Unknown setting " + key);
+			}
+			
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Expected a number for " + key + " but got " + value);
+		}
+		
+	}
+	
+}
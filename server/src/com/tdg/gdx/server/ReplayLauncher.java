@@ -0,0 +1,115 @@
+package com.tdg.gdx.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import Server.Utils.MatchRecording;
+import Server.Utils.ServerFiles;
+import Server.Utils.ServerLog;
+import Server.Utils.WordUtil;
+import Server.World.MatchReplay;
+
+/**
+ * Replays match recordings made with record=dir through the server's match logic, as fast as possible unless a speed is given.
+ * Exits with 1 if any replay did not end like its recording, so it can be used to check server changes against recorded traffic
+ */
+public class ReplayLauncher {
+
+	public static void main (String[] arg) {
+
+		float speed = 0;
+		String assets = ".";
+		ArrayList<File> files = new ArrayList<File>();
+
+		try {
+
+			for(String a : arg){
+
+				if(a.startsWith("speed=")){
+					speed = Float.parseFloat(a.substring(6));
+				}else if(a.startsWith("assets=")){
+					assets = a.substring(7);
+				}else{
+					addRecordings(new File(a), files);
+				}
+
+			}
+
+		} catch (NumberFormatException e) {
+			System.err.println("Expected a number for speed");
+			files.clear();
+		}
+
+		if(files.isEmpty()){
+			System.err.println("Usage: [speed=multiple of real time] [assets=dir] <recording or directory>...");
+			System.exit(1);
+			return;
+		}
+
+		ServerLog.setLogger(ServerLog.CONSOLE);
+		ServerFiles.setSource(new ServerFiles.Directory(new File(assets)));
+
+		if(!WordUtil.initializeWords()){
+			System.exit(1);
+		}
+
+		int diverged = 0;
+		long ticks = 0;
+		long elapsed = 0;
+		long timeStep = 0;
+
+		for(File file : files){
+
+			MatchReplay.Result result;
+
+			try {
+				result = new MatchReplay(new MatchRecording(file)).run(speed);
+			} catch (IOException e) {
+				ServerLog.log("ReplayLauncher", e.getMessage());
+				++diverged;
+				continue;
+			}
+
+			ServerLog.log("ReplayLauncher", file.getName() + " " + result);
+
+			if(result.recordedEnd && !result.matches){
+				++diverged;
+			}
+
+			ticks += result.ticks;
+			elapsed += result.elapsed;
+			timeStep = result.timeStep;
+		}
+
+		ServerLog.log("ReplayLauncher", "Replayed " + files.size() + " matches, " + ticks + " ticks in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms"
+				+ (elapsed > 0 ? ", " + Math.round((double)TimeUnit.MILLISECONDS.toNanos(ticks * timeStep) / elapsed) + "x real time" : "")
+				+ ", " + diverged + " diverged or could not be read");
+
+		System.exit(diverged > 0 ? 1 : 0);
+	}
+
+	private static void addRecordings(File file, ArrayList<File> files){
+
+		if(file.isDirectory()){
+
+			File[] children = file.listFiles();
+
+			if(children != null){
+				Arrays.sort(children);
+				for(File child : children){
+					if(child.getName().endsWith(MatchRecording.EXTENSION)){
+						files.add(child);
+					}
+				}
+			}
+
+		}else{
+			files.add(file);
+		}
+
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.tdg.gdx.server;
+
+import java.io.File;
+import java.io.IOException;
+
+import Server.Utils.ServerConfig;
+import Server.Utils.ServerFiles;
+import Server.Utils.ServerLog;
+import Server.Utils.ServerManager;
+import Server.Utils.WordUtil;
+
+/**
+ * Runs a dedicated server without a window or libGDX application.
+ * Settings are given as key=value arguments, see ServerConfig
+ */
+public class ServerLauncher {
+
+	public static void main (String[] arg) {
+
+		long start = System.nanoTime();
+
+		ServerConfig config;
+
+		try {
+			config = ServerConfig.parse(arg);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: [config=file] [tcp=port] [udp=port] [discovery=port] [tickRate=n] [shards=n] [resumeGrace=ms] [metricsInterval=ms] [assets=dir] [record=dir]");
+			System.exit(1);
+			return;
+		} catch (IOException e) {
+			System.err.println("Failed to read the config file: " + e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		ServerLog.setLogger(ServerLog.CONSOLE);
+		ServerFiles.setSource(new ServerFiles.Directory(new File(config.assets)));
+
+		if(!WordUtil.initializeWords()){
+			System.exit(1);
+		}
+
+		final ServerManager server = new ServerManager(config);
+
+		if(!server.bind()){
+			server.dispose();
+			System.exit(1);
+		}
+
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable(){
+
+			@Override
+			public void run() {
+				ServerLog.log("ServerLauncher", "Shutting down");
+				server.dispose();
+			}
+
+		}, "server-shutdown"));
+
+		ServerLog.log("ServerLauncher", "Started in " + (System.nanoTime() - start) / 1000000 + "ms with " + config);
+	}
+
+}